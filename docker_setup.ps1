@@ -10,3 +10,5 @@ docker run --name to-db -e POSTGRES_PASSWORD=admin --rm -p 5431:5432 -d postgres
 docker cp src/test/resources/users_schema.sql to-db:/docker-entrypoint-initdb.d/dump.sql
 Start-Sleep 2
 docker exec --user postgres -it to-db psql postgres postgres -f /docker-entrypoint-initdb.d/dump.sql
+docker cp src/test/resources/users_username_index.sql to-db:/tmp/users_username_index.sql
+docker exec --user postgres -it to-db psql postgres postgres -f /tmp/users_username_index.sql
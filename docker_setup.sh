@@ -10,4 +10,6 @@ docker stop to-db 2> /dev/null
 docker rm to-db 2> /dev/null
 docker run --name to-db -e POSTGRES_PASSWORD=admin --rm -p 5431:5432 -d postgres &&
 docker cp src/test/resources/users_schema.sql to-db:/docker-entrypoint-initdb.d/dump.sql && sleep 2 &&
-docker exec --user postgres -it to-db psql postgres postgres -f /docker-entrypoint-initdb.d/dump.sql
+docker exec --user postgres -it to-db psql postgres postgres -f /docker-entrypoint-initdb.d/dump.sql &&
+docker cp src/test/resources/users_username_index.sql to-db:/tmp/users_username_index.sql &&
+docker exec --user postgres -it to-db psql postgres postgres -f /tmp/users_username_index.sql
@@ -0,0 +1,58 @@
+package controller;
+
+import lombok.val;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Locale;
+
+// benchmarks drop and refill their users table, so on the shared docker PostgreSQL they get a schema of their own
+// and leave the test fixture's public.users alone
+enum BenchmarkDatabase {
+    H2("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "", "PUBLIC"),
+    POSTGRES("jdbc:postgresql://localhost:5431/?currentSchema=benchmark", "postgres", "admin", "benchmark");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String schema;
+
+    BenchmarkDatabase(String url, String user, String password, String schema) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.schema = schema;
+    }
+
+    static BenchmarkDatabase of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    String url() {
+        return url;
+    }
+
+    CrudController createController() {
+        return new CrudController(url, user, password);
+    }
+
+    CrudControllerConfig config() {
+        return CrudControllerConfig.of(url, user, password);
+    }
+
+    void recreateUsers(int rows) throws SQLException {
+        val idColumn = this == POSTGRES ? "id SERIAL PRIMARY KEY" : "id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY";
+        try (
+            val connection = DriverManager.getConnection(url, user, password);
+            val statement = connection.createStatement()
+        ) {
+            val table = schema + ".users";
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ( " + idColumn + ", username VARCHAR(31) NOT NULL )");
+            statement.executeUpdate(this == POSTGRES
+                ? "INSERT INTO " + table + "(username) SELECT 'user' || i FROM generate_series(1, " + rows + ") AS i"
+                : "INSERT INTO " + table + "(username) SELECT 'user' || X FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+    }
+}
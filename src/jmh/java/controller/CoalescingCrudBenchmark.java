@@ -0,0 +1,62 @@
+package controller;
+
+import lombok.val;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static controller.CrudControllerBenchmark.TABLE_SIZE;
+import static controller.CrudControllerBenchmark.randomId;
+
+// many more callers than pooled connections; coalescing pays off once round trips dominate,
+// so compare -PjmhDatabases=postgres as well, on in-process H2 the window mostly adds latency
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(CoalescingCrudBenchmark.CALLER_THREADS)
+public class CoalescingCrudBenchmark {
+    static final int CALLER_THREADS = 64;
+
+    @Param({"h2"})
+    public String database;
+
+    // direct: every call takes its own pooled connection, coalesced: calls share batches through CoalescingCrud
+    @Param({"direct", "coalesced"})
+    public String mode;
+
+    private CrudController controller;
+    private CRUD<User> crud;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        val benchmarkDatabase = BenchmarkDatabase.of(database);
+        benchmarkDatabase.recreateUsers(TABLE_SIZE);
+        controller = benchmarkDatabase.createController();
+        crud = mode.equals("coalesced") ? CoalescingCrud.forController(controller) : controller;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (crud instanceof CoalescingCrud coalescingCrud) {
+            coalescingCrud.close();
+        }
+        controller.close();
+    }
+
+    @Benchmark
+    public Optional<User> read() throws SQLException {
+        return crud.read(randomId());
+    }
+
+    // creates stay single-row on both sides, only the deletes are coalesced
+    @Benchmark
+    public void createThenDelete() throws SQLException {
+        crud.delete(controller.create(new User("doomed")));
+    }
+}
@@ -0,0 +1,137 @@
+package controller;
+
+import lombok.val;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudControllerBenchmark {
+    static final int TABLE_SIZE = 10_000;
+    static final int BULK_SIZE = 100;
+    static final int CONTENDED_THREADS = 8;
+
+    @Param({"h2"})
+    public String database;
+
+    private CrudController controller;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        val benchmarkDatabase = BenchmarkDatabase.of(database);
+        benchmarkDatabase.recreateUsers(TABLE_SIZE);
+        controller = benchmarkDatabase.createController();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+    }
+
+    @Benchmark
+    public int create() throws SQLException {
+        return controller.create(new User("bench"));
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public int createContended() throws SQLException {
+        return controller.create(new User("bench"));
+    }
+
+    @Benchmark
+    public Optional<User> read() throws SQLException {
+        return controller.read(randomId());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Optional<User> readContended() throws SQLException {
+        return controller.read(randomId());
+    }
+
+    @Benchmark
+    public void update() throws SQLException {
+        controller.update(randomId(), new User("updated"));
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public void updateContended() throws SQLException {
+        controller.update(randomId(), new User("updated"));
+    }
+
+    // deleting seeded rows would drain the table, so every delete removes a row created just before it
+    @Benchmark
+    public void createThenDelete() throws SQLException {
+        controller.delete(controller.create(new User("doomed")));
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public void createThenDeleteContended() throws SQLException {
+        controller.delete(controller.create(new User("doomed")));
+    }
+
+    @Benchmark
+    public int[] createAll() throws SQLException {
+        val users = new ArrayList<User>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            users.add(new User("bench" + i));
+        }
+        return controller.createAll(users);
+    }
+
+    @Benchmark
+    public Map<Integer, User> readMany() throws SQLException {
+        val ids = new ArrayList<Integer>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            ids.add(randomId());
+        }
+        return controller.readMany(ids);
+    }
+
+    @Benchmark
+    public List<Optional<User>> readManyAsSingleReads() throws SQLException {
+        val users = new ArrayList<Optional<User>>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            users.add(controller.read(randomId()));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public int updateAll() throws SQLException {
+        val newRecords = new HashMap<Integer, User>();
+        for (int i = 0; i < BULK_SIZE; i++) {
+            newRecords.put(randomId(), new User("updated" + i));
+        }
+        return controller.updateAll(newRecords);
+    }
+
+    @Benchmark
+    public int createAllThenDeleteAll() throws SQLException {
+        val users = new ArrayList<User>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            users.add(new User("doomed" + i));
+        }
+        return controller.deleteAll(controller.createAll(users));
+    }
+
+    static int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, TABLE_SIZE + 1);
+    }
+}
@@ -0,0 +1,91 @@
+package controller;
+
+import lombok.val;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OffHeapCrudBenchmark {
+    static final int TABLE_SIZE = 1_000_000;
+
+    @Param({"h2"})
+    public String database;
+
+    // controller: every read queries the database, heapMap: HashMap<Integer, User> baseline, offHeap: OffHeapCrud
+    @Param({"controller", "heapMap", "offHeap"})
+    public String store;
+
+    private CrudController controller;
+    private OffHeapCrud offHeapCrud;
+    private Map<Integer, User> heapMap;
+    private long retainedHeapBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        val benchmarkDatabase = BenchmarkDatabase.of(database);
+        benchmarkDatabase.recreateUsers(TABLE_SIZE);
+        controller = benchmarkDatabase.createController();
+
+        val heapBefore = usedHeapAfterGc();
+        switch (store) {
+            case "heapMap" -> {
+                heapMap = new HashMap<>();
+                try (val entities = controller.streamAll()) {
+                    entities.forEach(entity -> heapMap.put(entity.id(), entity.record()));
+                }
+            }
+            case "offHeap" -> offHeapCrud = OffHeapCrud.warmUp(controller, TABLE_SIZE);
+            default -> {
+            }
+        }
+        retainedHeapBytes = usedHeapAfterGc() - heapBefore;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+    }
+
+    @Benchmark
+    public Optional<User> read(Footprint footprint) throws SQLException {
+        val id = ThreadLocalRandom.current().nextInt(1, TABLE_SIZE + 1);
+        return switch (store) {
+            case "heapMap" -> Optional.ofNullable(heapMap.get(id));
+            case "offHeap" -> offHeapCrud.read(id);
+            default -> controller.read(id);
+        };
+    }
+
+    // the memory each store holds for the table, reported next to the read timings as secondary results
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedHeapMiB;
+        public long offHeapMiB;
+
+        @Setup(Level.Iteration)
+        public void setup(OffHeapCrudBenchmark benchmark) {
+            retainedHeapMiB = benchmark.retainedHeapBytes >> 20;
+            offHeapMiB = benchmark.offHeapCrud != null ? benchmark.offHeapCrud.offHeapBytes() >> 20 : 0;
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,56 @@
+package controller;
+
+import lombok.val;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static controller.CrudControllerBenchmark.TABLE_SIZE;
+import static controller.CrudControllerBenchmark.randomId;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementReuseBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    // baseline: pgjdbc's default threshold, prepared: server-side prepare from the first call,
+    // uncached: the same without the driver's statement cache, so every call prepares anew
+    @Param({"baseline", "prepared", "uncached"})
+    public String statements;
+
+    private CrudController controller;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        val benchmarkDatabase = BenchmarkDatabase.of(database);
+        benchmarkDatabase.recreateUsers(TABLE_SIZE);
+        controller = new CrudController(benchmarkDatabase.config().toBuilder()
+            .prepareThreshold(statements.equals("baseline") ? 5 : 1)
+            .cachePrepStmts(!statements.equals("uncached"))
+            .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+    }
+
+    @Benchmark
+    public Optional<User> read() throws SQLException {
+        return controller.read(randomId());
+    }
+
+    @Benchmark
+    public void update() throws SQLException {
+        controller.update(randomId(), new User("updated"));
+    }
+}
@@ -0,0 +1,70 @@
+package controller;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserExportBenchmark {
+    static final int TABLE_SIZE = 100_000;
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"CSV", "BINARY"})
+    public ExportFormat format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private CrudController controller;
+    private UserExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        val benchmarkDatabase = BenchmarkDatabase.of(database);
+        benchmarkDatabase.recreateUsers(TABLE_SIZE);
+        controller = benchmarkDatabase.createController();
+        exporter = new UserExporter(controller);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+    }
+
+    // one operation exports the whole table, so rows/s is ops/s times TABLE_SIZE
+    @Benchmark
+    public long export() throws SQLException, IOException {
+        return exporter.export(new DiscardingChannel(), format, gzip);
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer source) {
+            val written = source.remaining();
+            source.position(source.limit());
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package controller;
+
+import model.Entity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncCRUD<T> {
+    CompletableFuture<Integer> create(T record);
+    CompletableFuture<Optional<T>> read(int id);
+    CompletableFuture<Void> update(int id, T record);
+    CompletableFuture<Void> delete(int id);
+    CompletableFuture<Void> upsert(int id, T record);
+    CompletableFuture<Boolean> updateIf(int id, T expected, T replacement);
+
+    CompletableFuture<Map<Integer, T>> readMany(Collection<Integer> ids);
+    CompletableFuture<int[]> createAll(Collection<T> records);
+    CompletableFuture<Integer> updateAll(Map<Integer, T> records);
+    CompletableFuture<Integer> upsertAll(Map<Integer, T> records);
+    CompletableFuture<Integer> deleteAll(int[] ids);
+
+    CompletableFuture<List<Entity<T>>> page(int afterId, int limit);
+}
@@ -0,0 +1,12 @@
+package controller;
+
+import java.time.Duration;
+
+public record BulkLoadResult(
+    long rows,
+    Duration elapsed
+) {
+    public double rowsPerSecond() {
+        return elapsed.isZero() ? rows : rows * 1_000_000_000.0 / elapsed.toNanos();
+    }
+}
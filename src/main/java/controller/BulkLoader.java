@@ -0,0 +1,61 @@
+package controller;
+
+import lombok.val;
+import model.User;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public class BulkLoader {
+    private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+    private static final String COPY_SQL = "COPY users(username) FROM STDIN";
+
+    private final CrudController controller;
+
+    public BulkLoader(CrudController controller) {
+        if (controller == null) {
+            throw new IllegalArgumentException("Controller must not be null");
+        }
+        this.controller = controller;
+    }
+
+    public BulkLoadResult load(Stream<User> users) throws SQLException {
+        if (users == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        try (users) {
+            return load(users.iterator());
+        }
+    }
+
+    // all rows are loaded in one statement (COPY) or one transaction (batched INSERTs), or none are
+    public BulkLoadResult load(Iterator<User> users) throws SQLException {
+        if (users == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+
+        val start = System.nanoTime();
+        val rows = controller.dialect() == Dialect.POSTGRESQL
+            ? copyIn(users)
+            : controller.insertAll(users);
+        val result = new BulkLoadResult(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Loaded {} users in {} ms ({} rows/s)", result.rows(), result.elapsed().toMillis(), Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    private long copyIn(Iterator<User> users) throws SQLException {
+        try (val connection = controller.connection()) {
+            val copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            return copyManager.copyIn(COPY_SQL, new CopyTextReader(users));
+        } catch (IOException e) {
+            throw new SQLException("Reading users for COPY failed", e);
+        }
+    }
+}
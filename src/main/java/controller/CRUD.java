@@ -1,11 +1,34 @@
 package controller;
 
+import model.Entity;
+
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CRUD<T> {
-    void create(T record) throws SQLException;
+    int create(T record) throws SQLException;
     Optional<T> read(int id) throws SQLException;
     void update(int id, T record) throws SQLException;
     void delete(int id) throws SQLException;
-}
\ No newline at end of file
+
+    void upsert(int id, T record) throws SQLException;
+    boolean updateIf(int id, T expected, T replacement) throws SQLException;
+
+    Map<Integer, T> readMany(Collection<Integer> ids) throws SQLException;
+
+    default Optional<Entity<T>> readEntity(int id) throws SQLException {
+        return read(id).map(record -> new Entity<>(id, record));
+    }
+
+    int[] createAll(Collection<T> records) throws SQLException;
+    int updateAll(Map<Integer, T> records) throws SQLException;
+    int upsertAll(Map<Integer, T> records) throws SQLException;
+    int deleteAll(int[] ids) throws SQLException;
+
+    Stream<Entity<T>> streamAll() throws SQLException;
+    List<Entity<T>> page(int afterId, int limit) throws SQLException;
+}
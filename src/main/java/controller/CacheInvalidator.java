@@ -0,0 +1,49 @@
+package controller;
+
+import lombok.val;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+// keeps a CachingCrud coherent with writes made by other controllers, requesting one batch at a time
+public class CacheInvalidator implements Flow.Subscriber<List<UserChange>> {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final CachingCrud cache;
+    private Flow.Subscription subscription;
+
+    public CacheInvalidator(CachingCrud cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache must not be null");
+        }
+        this.cache = cache;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<UserChange> changes) {
+        for (val change : changes) {
+            cache.invalidate(change.id());
+        }
+        subscription.request(1);
+    }
+
+    // changes may have been missed, so nothing cached can be trusted any more
+    @Override
+    public void onError(Throwable throwable) {
+        log.warn("User change feed failed, invalidating the whole cache", throwable);
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+}
@@ -0,0 +1,323 @@
+package controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.val;
+import model.Entity;
+import model.User;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+public class CachingCrud implements UserCRUD {
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final UserCRUD delegate;
+    private final Cache<Integer, Optional<User>> cache;
+    // may point at an id whose username changed since, lookups check the cached User before trusting it
+    private final Cache<String, Integer> idsByUsername;
+    // bumped on every invalidation, a batch load only caches ids whose stripe did not move while it read
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public CachingCrud(UserCRUD delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    public CachingCrud(UserCRUD delegate, long maximumSize, Duration ttl, Duration negativeTtl) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero() || negativeTtl.isNegative() || negativeTtl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+
+        this.delegate = delegate;
+        // Caffeine evicts by size with W-TinyLFU, absent users expire sooner than present ones
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new PresenceAwareExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+            .recordStats()
+            .build();
+        this.idsByUsername = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        val id = delegate.create(record);
+        invalidateCached(id);
+        return id;
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be greater than 0");
+        }
+
+        try {
+            // concurrent misses on the same id wait for a single load
+            return cache.get(id, this::load);
+        } catch (UncheckedSqlException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        for (val id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("id must be greater than 0");
+            }
+        }
+
+        val distinctIds = new LinkedHashSet<Integer>(ids);
+        val cached = new HashMap<Integer, Optional<User>>(cache.getAllPresent(distinctIds));
+        if (cached.size() < distinctIds.size()) {
+            cached.putAll(loadAll(distinctIds, cached));
+        }
+
+        val users = new LinkedHashMap<Integer, User>();
+        for (val id : ids) {
+            cached.get(id).ifPresent(user -> users.put(id, user));
+        }
+        return users;
+    }
+
+    // a hit in both the username index and the record cache answers without the database
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+
+        val cachedId = idsByUsername.getIfPresent(username);
+        if (cachedId != null) {
+            val user = read(cachedId);
+            if (user.isPresent() && user.get().username().equals(username)) {
+                return Optional.of(new Entity<>(cachedId, user.get()));
+            }
+            idsByUsername.asMap().remove(username, cachedId);
+        }
+
+        val found = delegate.findByUsername(username);
+        found.ifPresent(entity -> idsByUsername.put(username, entity.id()));
+        return found;
+    }
+
+    // prefix results cannot be proven complete from a partial cache, so they always come from the delegate
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        return delegate.findByUsernamePrefix(prefix, limit);
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        try {
+            delegate.update(id, record);
+        } finally {
+            invalidateCached(id);
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidateCached(id);
+        }
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        try {
+            delegate.upsert(id, record);
+        } finally {
+            invalidateCached(id);
+        }
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        try {
+            return delegate.updateIf(id, expected, replacement);
+        } finally {
+            invalidateCached(id);
+        }
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        val ids = delegate.createAll(records);
+        for (val id : ids) {
+            invalidateCached(id);
+        }
+        return ids;
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        try {
+            return delegate.updateAll(records);
+        } finally {
+            if (records != null) {
+                records.keySet().forEach(this::invalidateCached);
+            }
+        }
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        try {
+            return delegate.upsertAll(records);
+        } finally {
+            if (records != null) {
+                records.keySet().forEach(this::invalidateCached);
+            }
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            if (ids != null) {
+                for (val id : ids) {
+                    invalidateCached(id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        return delegate.page(afterId, limit);
+    }
+
+    public void invalidate(int id) {
+        invalidateCached(id);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+        idsByUsername.invalidateAll();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private Optional<User> load(int id) {
+        try {
+            return delegate.read(id);
+        } catch (SQLException e) {
+            throw new UncheckedSqlException(e);
+        }
+    }
+
+    // misses are loaded with a single delegate call, ids the delegate did not find are cached as absent;
+    // an invalidation racing the load wins, the loaded row is still returned but not cached
+    private Map<Integer, Optional<User>> loadAll(Set<Integer> ids, Map<Integer, Optional<User>> cached) throws SQLException {
+        val missing = new ArrayList<Integer>(ids.size() - cached.size());
+        for (val id : ids) {
+            if (!cached.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        val stamps = new long[missing.size()];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = invalidations.get(stripe(missing.get(i)));
+        }
+
+        val found = delegate.readMany(missing);
+        val loaded = new HashMap<Integer, Optional<User>>(missing.size() * 2);
+        for (int i = 0; i < stamps.length; i++) {
+            val id = missing.get(i);
+            val user = Optional.ofNullable(found.get(id));
+            val stamp = stamps[i];
+            loaded.put(id, user);
+            // runs under the entry's lock, so an invalidation either sees the stale row or is seen by this check
+            cache.asMap().compute(id, (key, current) -> {
+                if (current != null) {
+                    return current;
+                }
+                return invalidations.get(stripe(key)) == stamp ? user : null;
+            });
+        }
+        return loaded;
+    }
+
+    private void invalidateCached(int id) {
+        invalidations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private static int stripe(int id) {
+        return id & (INVALIDATION_STRIPES - 1);
+    }
+
+    private record PresenceAwareExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Integer, Optional<User>> {
+
+        @Override
+        public long expireAfterCreate(Integer id, Optional<User> user, long currentTime) {
+            return user.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Integer id, Optional<User> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Integer id, Optional<User> user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
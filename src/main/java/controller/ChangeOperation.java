@@ -0,0 +1,29 @@
+package controller;
+
+import lombok.val;
+
+public enum ChangeOperation {
+    INSERT('I'),
+    UPDATE('U'),
+    DELETE('D');
+
+    private final char code;
+
+    ChangeOperation(char code) {
+        this.code = code;
+    }
+
+    char code() {
+        return code;
+    }
+
+    // first letter of the trigger's TG_OP, as sent in PostgreSQL notification payloads
+    static ChangeOperation fromCode(char code) {
+        for (val operation : values()) {
+            if (operation.code == code) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown change operation code: " + code);
+    }
+}
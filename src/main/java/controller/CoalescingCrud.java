@@ -0,0 +1,191 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// concurrent single-id reads and deletes are grouped into one readMany or deleteAll per micro-window,
+// so many callers share one pooled connection and one statement; everything else goes straight to the delegate.
+// Reads and deletes are batched separately, so a read issued before an earlier delete completed may still see the row
+public class CoalescingCrud implements UserCRUD, AutoCloseable {
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(1);
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final UserCRUD delegate;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final MicroBatcher<User> reads;
+    private final MicroBatcher<Void> deletes;
+
+    public CoalescingCrud(UserCRUD delegate) {
+        this(delegate, DEFAULT_WINDOW, DEFAULT_MAX_BATCH);
+    }
+
+    public CoalescingCrud(UserCRUD delegate, Duration window, int maxBatch) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Max batch must be positive");
+        }
+
+        this.delegate = delegate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "coalescing-crud-window"));
+        val threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> daemon(runnable, "coalescing-crud-" + threadNumber.incrementAndGet()));
+        val windowNanos = window.toNanos();
+        this.reads = new MicroBatcher<>(delegate::readMany, windowNanos, maxBatch, scheduler, executor);
+        this.deletes = new MicroBatcher<>(ids -> {
+            delegate.deleteAll(ids.stream().mapToInt(Integer::intValue).toArray());
+            return Map.of();
+        }, windowNanos, maxBatch, scheduler, executor);
+    }
+
+    public static CoalescingCrud forController(CrudController controller) {
+        return new CoalescingCrud(controller);
+    }
+
+    public CompletableFuture<Optional<User>> readAsync(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be greater than 0");
+        }
+        return reads.submit(id).thenApply(Optional::ofNullable);
+    }
+
+    // a batch is deleted in one transaction, so one failing statement fails every delete of its batch
+    public CompletableFuture<Void> deleteAsync(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+        return deletes.submit(id);
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        return delegate.create(record);
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        return await(readAsync(id));
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        delegate.update(id, record);
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        await(deleteAsync(id));
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        delegate.upsert(id, record);
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        return delegate.updateIf(id, expected, replacement);
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        return delegate.readMany(ids);
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        return delegate.createAll(records);
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        return delegate.updateAll(records);
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        return delegate.upsertAll(records);
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        return delegate.deleteAll(ids);
+    }
+
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        return delegate.page(afterId, limit);
+    }
+
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        return delegate.findByUsernamePrefix(prefix, limit);
+    }
+
+    // runs the pending batches on the calling thread and rejects later reads and deletes, running batches finish in the background
+    @Override
+    public void close() {
+        reads.close();
+        deletes.close();
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    private static <R> R await(CompletableFuture<R> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a batched call", e);
+        } catch (ExecutionException e) {
+            val cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        val thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
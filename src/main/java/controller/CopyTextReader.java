@@ -0,0 +1,63 @@
+package controller;
+
+import model.User;
+
+import java.io.Reader;
+import java.util.Iterator;
+
+// encodes one user at a time into PostgreSQL COPY text format, so the input is never held in memory
+class CopyTextReader extends Reader {
+    private final Iterator<User> users;
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+
+    CopyTextReader(Iterator<User> users) {
+        this.users = users;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        int written = 0;
+        while (written < length) {
+            if (position == line.length()) {
+                if (!users.hasNext()) {
+                    break;
+                }
+                encode(users.next());
+            }
+            int count = Math.min(length - written, line.length() - position);
+            line.getChars(position, position + count, buffer, offset + written);
+            position += count;
+            written += count;
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void encode(User user) {
+        if (user.username().isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank.");
+        }
+
+        line.setLength(0);
+        position = 0;
+        for (int i = 0; i < user.username().length(); i++) {
+            char c = user.username().charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> line.append(c);
+            }
+        }
+        line.append('\n');
+    }
+}
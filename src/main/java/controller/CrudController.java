@@ -3,36 +3,166 @@ package controller;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.val;
+import model.Entity;
 import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class CrudController implements UserCRUD, AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int IN_LIST_CHUNK_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(CrudController.class);
+
+    private static final String INSERT_SQL = "INSERT INTO users VALUES(DEFAULT, ?)";
+    private static final String READ_SQL = "SELECT username FROM users WHERE id = ?";
+    private static final String UPDATE_SQL =
+        """
+        UPDATE users
+        SET username = ?
+        WHERE id = ?
+        """;
+    private static final String UPDATE_IF_SQL =
+        """
+        UPDATE users
+        SET username = ?
+        WHERE id = ? AND username = ?
+        """;
+    private static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+    private static final String STREAM_ALL_SQL = "SELECT id, username FROM users ORDER BY id";
+    private static final String PAGE_SQL =
+        """
+        SELECT id, username
+        FROM users
+        WHERE id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+    private static final String READ_BY_ID_ARRAY_SQL = "SELECT id, username FROM users WHERE id = ANY(?)";
+    private static final String FIND_BY_USERNAME_SQL = "SELECT id, username FROM users WHERE username = ?";
+    private static final String FIND_BY_USERNAME_PREFIX_SQL =
+        """
+        SELECT id, username
+        FROM users
+        WHERE username LIKE ? ESCAPE '\\'
+        ORDER BY username
+        LIMIT ?
+        """;
+
+    private static final String[] GENERATED_KEY_COLUMNS = {"id"};
+    private static final BatchCallback NO_CALLBACK = preparedStatement -> {};
 
-public class CrudController implements CRUD<User> {
     private final DataSource dataSource;
+    private final HikariDataSource ownedPool;
+    private final Dialect dialect;
+    private final int batchSize;
+    private final int fetchSize;
+    private final int maximumPoolSize;
+    private final CrudMetrics metrics;
+    private final long slowQueryThresholdNanos;
+    private final String upsertSql;
+    // whole seconds per CrudOperation ordinal, zero leaves the driver default
+    private final int[] queryTimeoutSeconds;
 
     public CrudController(String url, String user, String password) {
-        val config = new HikariConfig();
-        config.setJdbcUrl(url);
-        config.setUsername(user);
-        config.setPassword(password);
-        dataSource = new HikariDataSource(config);
+        this(CrudControllerConfig.of(url, user, password));
     }
 
-    @Override
-    public void create(User record) throws SQLException {
-        if(record.username().isBlank()) {
-            throw new IllegalArgumentException("Username must not be blank.");
+    public CrudController(String url, String user, String password, int batchSize) {
+        this(CrudControllerConfig.of(url, user, password).toBuilder()
+            .batchSize(batchSize)
+            .build());
+    }
+
+    public CrudController(DataSource dataSource) {
+        this(CrudControllerConfig.builder()
+            .dataSource(dataSource)
+            .build());
+    }
+
+    public CrudController(CrudControllerConfig config) {
+        if (config.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (config.getFetchSize() <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        if (config.getMetrics() == null) {
+            throw new IllegalArgumentException("Metrics must not be null");
         }
+        if (config.getQueryTimeouts() == null) {
+            throw new IllegalArgumentException("Query timeouts must not be null");
+        }
+        // validated before a pool is started that a failure here would leak
+        queryTimeoutSeconds = queryTimeoutSeconds(config);
+
+        if (config.getDataSource() != null) {
+            dataSource = config.getDataSource();
+            ownedPool = null;
+            dialect = config.getDialect() != null ? config.getDialect() : detectDialect(dataSource);
+            maximumPoolSize = dataSource instanceof HikariDataSource injectedPool
+                ? injectedPool.getMaximumPoolSize()
+                : config.getMaximumPoolSize();
+        } else {
+            dialect = config.getDialect() != null ? config.getDialect() : Dialect.fromJdbcUrl(config.getJdbcUrl());
+            ownedPool = new HikariDataSource(toHikariConfig(config, dialect));
+            dataSource = ownedPool;
+            maximumPoolSize = config.getMaximumPoolSize();
+        }
+        batchSize = config.getBatchSize();
+        fetchSize = config.getFetchSize();
+        metrics = config.getMetrics();
+        slowQueryThresholdNanos = config.getSlowQueryThreshold().toNanos();
+        upsertSql = upsertSql(dialect);
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        validateNewRecord(record);
 
-        val sql = "INSERT INTO users VALUES(DEFAULT, ?)";
         try (
-            val connection = dataSource.getConnection();
-            val preparedStatement = connection.prepareStatement(sql)
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.CREATE, INSERT_SQL, GENERATED_KEY_COLUMNS)
         ) {
             preparedStatement.setString(1, record.username());
+            val start = System.nanoTime();
             preparedStatement.executeUpdate();
+            if (isSlow(start)) {
+                logSlowQuery(INSERT_SQL, start, record.username());
+            }
+            try (val generatedKeys = preparedStatement.getGeneratedKeys()) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Database did not return a generated id");
+                }
+                return generatedKeys.getInt(1);
+            }
         }
     }
 
@@ -42,64 +172,772 @@ public class CrudController implements CRUD<User> {
             throw new IllegalArgumentException("id must be greater than 0");
         }
 
-        val sql = "SELECT * FROM users WHERE id = ?";
         try (
-            val connection = dataSource.getConnection();
-            val preparedStatement = connection.prepareStatement(sql)
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.READ, READ_SQL)
         ) {
             preparedStatement.setLong(1, id);
-            val resultSet = preparedStatement.executeQuery();
-            if (!resultSet.next()) {
-                return Optional.empty();
+            val start = System.nanoTime();
+            try (val resultSet = preparedStatement.executeQuery()) {
+                if (isSlow(start)) {
+                    logSlowQuery(READ_SQL, start, id);
+                }
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new User(
+                    resultSet.getString(1)
+                ));
             }
-            return Optional.of(new User(
-                resultSet.getString("username")
-            ));
         }
     }
 
     @Override
     public void update(int id, User newRecord) throws SQLException {
-        if (newRecord == null){
-            throw new IllegalArgumentException("User must not be null");
-        }
-        if (newRecord.username().isBlank()) {
-            throw new IllegalArgumentException("Username must not be blank");
-        }
-        if (id <= 0) {
-            throw new IllegalArgumentException("User id must be positive");
-        }
+        validateUpdate(id, newRecord);
 
-        val sql =
-            """
-            UPDATE users
-            SET username = ?
-            WHERE id = ?
-            """;
         try (
-            val connection = dataSource.getConnection();
-            val preparedStatement = connection.prepareStatement(sql)
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.UPDATE, UPDATE_SQL)
         ) {
             preparedStatement.setString(1, newRecord.username());
             preparedStatement.setLong(2, id);
+            val start = System.nanoTime();
             preparedStatement.executeUpdate();
+            if (isSlow(start)) {
+                logSlowQuery(UPDATE_SQL, start, newRecord.username(), id);
+            }
         }
     }
 
     @Override
     public void delete(int id) throws SQLException {
-        if (id <= 0) {
-            throw new IllegalArgumentException("User id must be positive");
+        validateId(id);
+
+        try (
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.DELETE, DELETE_SQL)
+        ) {
+            preparedStatement.setLong(1, id);
+            val start = System.nanoTime();
+            preparedStatement.executeUpdate();
+            if (isSlow(start)) {
+                logSlowQuery(DELETE_SQL, start, id);
+            }
         }
+    }
+
+    // ids written here bypass the id sequence, so they should be ids the sequence already handed out or never will
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        validateUpdate(id, record);
 
-        val sql = "DELETE FROM users WHERE id = ?";
         try (
-            val connection = dataSource.getConnection();
-            val preparedStatement = connection.prepareStatement(sql)
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.UPSERT, upsertSql)
         ) {
             preparedStatement.setLong(1, id);
+            preparedStatement.setString(2, record.username());
+            val start = System.nanoTime();
             preparedStatement.executeUpdate();
+            if (isSlow(start)) {
+                logSlowQuery(upsertSql, start, id, record.username());
+            }
+        }
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        if (expected == null) {
+            throw new IllegalArgumentException("Expected user must not be null");
+        }
+        validateUpdate(id, replacement);
+
+        try (
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.UPDATE_IF, UPDATE_IF_SQL)
+        ) {
+            preparedStatement.setString(1, replacement.username());
+            preparedStatement.setLong(2, id);
+            preparedStatement.setString(3, expected.username());
+            val start = System.nanoTime();
+            val updatedRows = preparedStatement.executeUpdate();
+            if (isSlow(start)) {
+                logSlowQuery(UPDATE_IF_SQL, start, replacement.username(), id, expected.username());
+            }
+            return updatedRows == 1;
+        }
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        records.forEach(CrudController::validateNewRecord);
+
+        return inTransaction(connection -> {
+            try (val preparedStatement = connection.prepareStatement(INSERT_SQL, GENERATED_KEY_COLUMNS)) {
+                applyQueryTimeout(preparedStatement, CrudOperation.CREATE_ALL);
+                val ids = IntStream.builder();
+                executeInBatches(INSERT_SQL, preparedStatement, records, (statement, record) ->
+                    statement.setString(1, record.username()), statement -> collectGeneratedIds(statement, ids));
+
+                val generatedIds = ids.build().toArray();
+                if (generatedIds.length != records.size()) {
+                    throw new SQLException("Database returned " + generatedIds.length + " generated ids for " + records.size() + " rows");
+                }
+                return generatedIds;
+            }
+        });
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> newRecords) throws SQLException {
+        if (newRecords == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        newRecords.forEach(CrudController::validateUpdate);
+
+        return inTransaction(connection -> updateInBatches(connection, newRecords));
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        records.forEach(CrudController::validateUpdate);
+
+        return inTransaction(connection -> {
+            try (val preparedStatement = connection.prepareStatement(upsertSql)) {
+                applyQueryTimeout(preparedStatement, CrudOperation.UPSERT_ALL);
+                return executeInBatches(upsertSql, preparedStatement, records.entrySet(), (statement, entry) -> {
+                    statement.setLong(1, entry.getKey());
+                    statement.setString(2, entry.getValue().username());
+                }, NO_CALLBACK);
+            }
+        });
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        Arrays.stream(ids).forEach(CrudController::validateId);
+
+        return inTransaction(connection -> deleteInBatches(connection, ids));
+    }
+
+    // updates and deletes for distinct ids in a single transaction, as used by write-behind flushes
+    public int applyAll(Map<Integer, User> newRecords, int[] deletedIds) throws SQLException {
+        if (newRecords == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        if (deletedIds == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        newRecords.forEach(CrudController::validateUpdate);
+        Arrays.stream(deletedIds).forEach(CrudController::validateId);
+
+        return inTransaction(connection -> {
+            int affectedRows = 0;
+            if (!newRecords.isEmpty()) {
+                affectedRows += updateInBatches(connection, newRecords);
+            }
+            if (deletedIds.length > 0) {
+                affectedRows += deleteInBatches(connection, deletedIds);
+            }
+            return affectedRows;
+        });
+    }
+
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        val connection = connection();
+        try {
+            // PostgreSQL only streams through a server-side cursor, which has to live inside a transaction
+            connection.setAutoCommit(false);
+            if (dialect == Dialect.H2) {
+                setLazyQueryExecution(connection, true);
+            }
+            val preparedStatement = connection.prepareStatement(STREAM_ALL_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            applyQueryTimeout(preparedStatement, CrudOperation.STREAM_ALL);
+            val start = System.nanoTime();
+            val resultSet = preparedStatement.executeQuery();
+            if (isSlow(start)) {
+                logSlowQuery(STREAM_ALL_SQL, start);
+            }
+            return StreamSupport.stream(new EntitySpliterator(resultSet), false)
+                .onClose(() -> release(connection));
+        } catch (SQLException | RuntimeException e) {
+            closeStreamConnection(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        if (afterId < 0) {
+            throw new IllegalArgumentException("afterId must not be negative");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        try (
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.PAGE, PAGE_SQL)
+        ) {
+            preparedStatement.setLong(1, afterId);
+            preparedStatement.setInt(2, limit);
+            val start = System.nanoTime();
+            try (val resultSet = preparedStatement.executeQuery()) {
+                if (isSlow(start)) {
+                    logSlowQuery(PAGE_SQL, start, afterId, limit);
+                }
+                val entities = new ArrayList<Entity<User>>(limit);
+                while (resultSet.next()) {
+                    entities.add(mapEntity(resultSet));
+                }
+                return entities;
+            }
         }
     }
 
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+
+        try (
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.FIND_BY_USERNAME, FIND_BY_USERNAME_SQL)
+        ) {
+            preparedStatement.setString(1, username);
+            val start = System.nanoTime();
+            try (val resultSet = preparedStatement.executeQuery()) {
+                if (isSlow(start)) {
+                    logSlowQuery(FIND_BY_USERNAME_SQL, start, username);
+                }
+                return resultSet.next() ? Optional.of(mapEntity(resultSet)) : Optional.empty();
+            }
+        }
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix must not be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        try (
+            val connection = connection();
+            val preparedStatement = prepare(connection, CrudOperation.FIND_BY_USERNAME_PREFIX, FIND_BY_USERNAME_PREFIX_SQL)
+        ) {
+            preparedStatement.setString(1, escapeLikePattern(prefix) + "%");
+            preparedStatement.setInt(2, limit);
+            val start = System.nanoTime();
+            try (val resultSet = preparedStatement.executeQuery()) {
+                if (isSlow(start)) {
+                    logSlowQuery(FIND_BY_USERNAME_PREFIX_SQL, start, prefix, limit);
+                }
+                val entities = new ArrayList<Entity<User>>();
+                while (resultSet.next()) {
+                    entities.add(mapEntity(resultSet));
+                }
+                return entities;
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        val distinctIds = new LinkedHashSet<Integer>(ids);
+        for (val id : distinctIds) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("id must be greater than 0");
+            }
+        }
+
+        val found = new HashMap<Integer, User>(distinctIds.size() * 2);
+        if (!distinctIds.isEmpty()) {
+            try (val connection = connection()) {
+                if (dialect == Dialect.POSTGRESQL) {
+                    readByIdArray(connection, distinctIds, found);
+                } else {
+                    readByIdLists(connection, distinctIds, found);
+                }
+            }
+        }
+
+        val users = new LinkedHashMap<Integer, User>(found.size() * 2);
+        for (val id : distinctIds) {
+            val user = found.get(id);
+            if (user != null) {
+                users.put(id, user);
+            }
+        }
+        return users;
+    }
+
+    private void readByIdArray(Connection connection, Collection<Integer> ids, Map<Integer, User> found) throws SQLException {
+        try (val preparedStatement = connection.prepareStatement(READ_BY_ID_ARRAY_SQL)) {
+            applyQueryTimeout(preparedStatement, CrudOperation.READ_MANY);
+            val idArray = connection.createArrayOf("integer", ids.toArray());
+            try {
+                preparedStatement.setArray(1, idArray);
+                collectUsers(READ_BY_ID_ARRAY_SQL, preparedStatement, ids.size(), found);
+            } finally {
+                idArray.free();
+            }
+        }
+    }
+
+    private void readByIdLists(Connection connection, Collection<Integer> ids, Map<Integer, User> found) throws SQLException {
+        val chunk = new ArrayList<Integer>(IN_LIST_CHUNK_SIZE);
+        for (val id : ids) {
+            chunk.add(id);
+            if (chunk.size() == IN_LIST_CHUNK_SIZE) {
+                readByIdList(connection, chunk, found);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            readByIdList(connection, chunk, found);
+        }
+    }
+
+    private void readByIdList(Connection connection, List<Integer> ids, Map<Integer, User> found) throws SQLException {
+        val placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        val sql = "SELECT id, username FROM users WHERE id IN (" + placeholders + ")";
+        try (val preparedStatement = connection.prepareStatement(sql)) {
+            applyQueryTimeout(preparedStatement, CrudOperation.READ_MANY);
+            for (int i = 0; i < ids.size(); i++) {
+                preparedStatement.setLong(i + 1, ids.get(i));
+            }
+            collectUsers(sql, preparedStatement, ids.size(), found);
+        }
+    }
+
+    private void collectUsers(String sql, PreparedStatement preparedStatement, int idCount, Map<Integer, User> found) throws SQLException {
+        val start = System.nanoTime();
+        try (val resultSet = preparedStatement.executeQuery()) {
+            if (isSlow(start)) {
+                log.warn("Slow query ({} ms, {} ids): {}", elapsedMillis(start), idCount, flatten(sql));
+            }
+            while (resultSet.next()) {
+                val entity = mapEntity(resultSet);
+                found.put(entity.id(), entity.record());
+            }
+        }
+    }
+
+    public int maximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    Dialect dialect() {
+        return dialect;
+    }
+
+    int fetchSize() {
+        return fetchSize;
+    }
+
+    // plain batched INSERTs in one transaction, for bulk loads that do not need the generated ids
+    long insertAll(Iterator<User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+
+        return inTransaction(connection -> {
+            try (val preparedStatement = connection.prepareStatement(INSERT_SQL)) {
+                applyQueryTimeout(preparedStatement, CrudOperation.CREATE_ALL);
+                return (long) executeInBatches(INSERT_SQL, preparedStatement, () -> records, (statement, record) -> {
+                    validateNewRecord(record);
+                    statement.setString(1, record.username());
+                }, NO_CALLBACK);
+            }
+        });
+    }
+
+    // restarts the id sequence at the first id of the series firstId, firstId + step, ... above every stored id and
+    // caps it at lastId, so the database refuses inserts past the ceiling; returns false when no id is left.
+    // rows inserted concurrently with the restart can still collide, so this belongs in startup, not in request paths
+    boolean alignIdSequence(int firstId, int step, int lastId) throws SQLException {
+        if (firstId <= 0 || step <= 0 || lastId < firstId) {
+            throw new IllegalArgumentException("First id and step must be positive and last id must not be below first id");
+        }
+
+        try (
+            val connection = connection();
+            val statement = connection.createStatement()
+        ) {
+            final int maxId;
+            try (val resultSet = statement.executeQuery("SELECT MAX(id) FROM users")) {
+                resultSet.next();
+                maxId = resultSet.getInt(1);
+            }
+            val nextId = maxId < firstId ? firstId : firstId + ((long) (maxId - firstId) / step + 1) * step;
+            // an exhausted sequence restarts on its last id, which is taken, so inserts fail instead of leaving the range
+            val restartId = Math.min(nextId, lastId);
+
+            if (dialect == Dialect.POSTGRESQL) {
+                final String sequence;
+                try (val resultSet = statement.executeQuery("SELECT pg_get_serial_sequence('users', 'id')")) {
+                    resultSet.next();
+                    sequence = resultSet.getString(1);
+                }
+                statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + step + " MAXVALUE " + lastId
+                    + " RESTART WITH " + restartId);
+            } else {
+                statement.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + restartId + " SET INCREMENT BY " + step
+                    + " SET MAXVALUE " + lastId);
+            }
+            return nextId <= lastId;
+        }
+    }
+
+    // H2 materialises a whole result before handing out its first row unless the session executes lazily;
+    // the setting stays on the pooled connection, so it is switched off again before the connection is released
+    static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+        try (val statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    // PostgreSQL reports sequence_generator_limit_exceeded, H2 its SEQUENCE_EXHAUSTED error code
+    static boolean isSequenceExhausted(SQLException e) {
+        return "2200H".equals(e.getSQLState()) || e.getErrorCode() == 90006;
+    }
+
+    // shuts down the pool the controller created; an injected DataSource stays open for its owner to close
+    @Override
+    public void close() {
+        if (ownedPool != null) {
+            ownedPool.close();
+        }
+    }
+
+    private static HikariConfig toHikariConfig(CrudControllerConfig config, Dialect dialect) {
+        val hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(config.getJdbcUrl());
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        if (config.getPoolName() != null) {
+            hikariConfig.setPoolName(config.getPoolName());
+        }
+        hikariConfig.setMaximumPoolSize(config.getMaximumPoolSize());
+        if (config.getMinimumIdle() >= 0) {
+            hikariConfig.setMinimumIdle(config.getMinimumIdle());
+        }
+        hikariConfig.setConnectionTimeout(config.getConnectionTimeout().toMillis());
+        hikariConfig.setIdleTimeout(config.getIdleTimeout().toMillis());
+        hikariConfig.setMaxLifetime(config.getMaxLifetime().toMillis());
+        hikariConfig.setLeakDetectionThreshold(config.getLeakDetectionThreshold().toMillis());
+        if (config.getMetrics() != CrudMetrics.NOOP) {
+            hikariConfig.setMetricsTrackerFactory(new CrudMetricsTrackerFactory(config.getMetrics()));
+        }
+
+        val statementCacheSize = config.isCachePrepStmts() ? config.getPrepStmtCacheSize() : 0;
+        switch (dialect) {
+            case POSTGRESQL -> {
+                // lets pgjdbc collapse batched single-row INSERTs into multi-row INSERTs
+                hikariConfig.addDataSourceProperty("reWriteBatchedInserts", "true");
+                // keeps the statements of each connection prepared on the server, so preparing the same SQL again skips the parse
+                hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(statementCacheSize));
+                // executions before pgjdbc switches from unnamed to named server-side statements, skipping the re-parse
+                hikariConfig.addDataSourceProperty("prepareThreshold", String.valueOf(config.getPrepareThreshold()));
+            }
+            case GENERIC -> {
+                hikariConfig.addDataSourceProperty("cachePrepStmts", String.valueOf(config.isCachePrepStmts()));
+                hikariConfig.addDataSourceProperty("prepStmtCacheSize", String.valueOf(config.getPrepStmtCacheSize()));
+            }
+            case H2 -> {
+                // H2 keeps its own per-session cache of parsed statements
+            }
+        }
+        return hikariConfig;
+    }
+
+    private static Dialect detectDialect(DataSource dataSource) {
+        try (val connection = dataSource.getConnection()) {
+            return Dialect.fromJdbcUrl(connection.getMetaData().getURL());
+        } catch (SQLException e) {
+            throw new UncheckedSqlException(e);
+        }
+    }
+
+    Connection connection() throws SQLException {
+        val start = System.nanoTime();
+        val connection = dataSource.getConnection();
+        metrics.recordPoolWait(System.nanoTime() - start);
+        return connection;
+    }
+
+    // repeated SQL is served from the driver's per-connection statement cache, see toHikariConfig
+    private PreparedStatement prepare(Connection connection, CrudOperation operation, String sql, String... generatedKeyColumns) throws SQLException {
+        val preparedStatement = generatedKeyColumns.length == 0
+            ? connection.prepareStatement(sql)
+            : connection.prepareStatement(sql, generatedKeyColumns);
+        try {
+            applyQueryTimeout(preparedStatement, operation);
+        } catch (SQLException | RuntimeException e) {
+            preparedStatement.close();
+            throw e;
+        }
+        return preparedStatement;
+    }
+
+    private void applyQueryTimeout(Statement statement, CrudOperation operation) throws SQLException {
+        val seconds = queryTimeoutSeconds[operation.ordinal()];
+        if (seconds > 0) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    private boolean isSlow(long startNanos) {
+        return slowQueryThresholdNanos > 0 && System.nanoTime() - startNanos >= slowQueryThresholdNanos;
+    }
+
+    private static void logSlowQuery(String sql, long startNanos, Object... parameters) {
+        log.warn("Slow query ({} ms): {} parameters={}", elapsedMillis(startNanos), flatten(sql), redact(parameters));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static String flatten(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    // ids and limits are safe to log, usernames are personal data
+    private static String redact(Object[] parameters) {
+        return Arrays.stream(parameters)
+            .map(parameter -> parameter instanceof Number ? parameter.toString() : "<redacted>")
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    // wildcards in the prefix match literally
+    private static String escapeLikePattern(String prefix) {
+        return prefix
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+    }
+
+    // JDBC timeouts are whole seconds, so sub-second timeouts round up to one second
+    private static int[] queryTimeoutSeconds(CrudControllerConfig config) {
+        val seconds = new int[CrudOperation.values().length];
+        for (val operation : CrudOperation.values()) {
+            val timeout = config.getQueryTimeouts().getOrDefault(operation, config.getQueryTimeout());
+            if (timeout == null || timeout.isNegative()) {
+                throw new IllegalArgumentException("Query timeout must not be negative");
+            }
+            seconds[operation.ordinal()] = (int) Math.min(Integer.MAX_VALUE, (timeout.toMillis() + 999) / 1000);
+        }
+        return seconds;
+    }
+
+    private static String upsertSql(Dialect dialect) {
+        return switch (dialect) {
+            case POSTGRESQL ->
+                """
+                INSERT INTO users(id, username)
+                VALUES (?, ?)
+                ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username
+                """;
+            case H2 -> "MERGE INTO users(id, username) KEY(id) VALUES (?, ?)";
+            case GENERIC ->
+                """
+                MERGE INTO users
+                USING (VALUES (CAST(? AS INT), CAST(? AS VARCHAR(31)))) AS source(id, username)
+                ON users.id = source.id
+                WHEN MATCHED THEN UPDATE SET username = source.username
+                WHEN NOT MATCHED THEN INSERT (id, username) VALUES (source.id, source.username)
+                """;
+        };
+    }
+
+    private int updateInBatches(Connection connection, Map<Integer, User> newRecords) throws SQLException {
+        try (val preparedStatement = connection.prepareStatement(UPDATE_SQL)) {
+            applyQueryTimeout(preparedStatement, CrudOperation.UPDATE_ALL);
+            return executeInBatches(UPDATE_SQL, preparedStatement, newRecords.entrySet(), (statement, entry) -> {
+                statement.setString(1, entry.getValue().username());
+                statement.setLong(2, entry.getKey());
+            }, NO_CALLBACK);
+        }
+    }
+
+    private int deleteInBatches(Connection connection, int[] ids) throws SQLException {
+        val boxedIds = Arrays.stream(ids).boxed().toList();
+        try (val preparedStatement = connection.prepareStatement(DELETE_SQL)) {
+            applyQueryTimeout(preparedStatement, CrudOperation.DELETE_ALL);
+            return executeInBatches(DELETE_SQL, preparedStatement, boxedIds, (statement, id) ->
+                statement.setLong(1, id), NO_CALLBACK);
+        }
+    }
+
+    private <R> R inTransaction(TransactionalWork<R> work) throws SQLException {
+        try (val connection = connection()) {
+            val autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                val result = work.execute(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private <E> int executeInBatches(
+        String sql,
+        PreparedStatement preparedStatement,
+        Iterable<E> elements,
+        StatementBinder<E> binder,
+        BatchCallback afterBatch
+    ) throws SQLException {
+        int affectedRows = 0;
+        int pending = 0;
+        for (val element : elements) {
+            binder.bind(preparedStatement, element);
+            preparedStatement.addBatch();
+            if (++pending == batchSize) {
+                affectedRows += executeBatch(sql, preparedStatement, pending);
+                afterBatch.accept(preparedStatement);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            affectedRows += executeBatch(sql, preparedStatement, pending);
+            afterBatch.accept(preparedStatement);
+        }
+        return affectedRows;
+    }
+
+    private int executeBatch(String sql, PreparedStatement preparedStatement, int statements) throws SQLException {
+        val start = System.nanoTime();
+        val affectedRows = countAffectedRows(preparedStatement.executeBatch());
+        if (isSlow(start)) {
+            log.warn("Slow batch ({} ms, {} statements): {}", elapsedMillis(start), statements, flatten(sql));
+        }
+        return affectedRows;
+    }
+
+    private static Entity<User> mapEntity(ResultSet resultSet) throws SQLException {
+        return new Entity<>(
+            resultSet.getInt("id"),
+            new User(resultSet.getString("username"))
+        );
+    }
+
+    // returning the connection to the pool rolls back the cursor's transaction and closes its statement
+    private void release(Connection connection) {
+        try {
+            closeStreamConnection(connection);
+        } catch (SQLException e) {
+            throw new UncheckedSqlException(e);
+        }
+    }
+
+    private void closeStreamConnection(Connection connection) throws SQLException {
+        try (connection) {
+            if (dialect == Dialect.H2) {
+                setLazyQueryExecution(connection, false);
+            }
+        }
+    }
+
+    private static void collectGeneratedIds(PreparedStatement preparedStatement, IntStream.Builder ids) throws SQLException {
+        try (val generatedKeys = preparedStatement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                ids.add(generatedKeys.getInt(1));
+            }
+        }
+    }
+
+    private static int countAffectedRows(int[] updateCounts) {
+        int affectedRows = 0;
+        for (val updateCount : updateCounts) {
+            // rewritten batches report SUCCESS_NO_INFO; each statement in them touches exactly one row
+            affectedRows += updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+        }
+        return affectedRows;
+    }
+
+    private static void validateNewRecord(User record) {
+        if (record.username().isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank.");
+        }
+    }
+
+    private static void validateUpdate(int id, User newRecord) {
+        if (newRecord == null){
+            throw new IllegalArgumentException("User must not be null");
+        }
+        if (newRecord.username().isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+        validateId(id);
+    }
+
+    private static void validateId(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+    }
+
+    private static final class EntitySpliterator extends Spliterators.AbstractSpliterator<Entity<User>> {
+        private final ResultSet resultSet;
+
+        private EntitySpliterator(ResultSet resultSet) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entity<User>> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                action.accept(mapEntity(resultSet));
+                return true;
+            } catch (SQLException e) {
+                throw new UncheckedSqlException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionalWork<R> {
+        R execute(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder<E> {
+        void bind(PreparedStatement preparedStatement, E element) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface BatchCallback {
+        void accept(PreparedStatement preparedStatement) throws SQLException;
+    }
+
 }
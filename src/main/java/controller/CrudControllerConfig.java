@@ -0,0 +1,86 @@
+package controller;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+@Value
+@Builder(toBuilder = true)
+public class CrudControllerConfig {
+
+    String jdbcUrl;
+    String username;
+    String password;
+
+    // when set, the controller uses this DataSource as-is and ignores the URL, credentials and pool settings
+    DataSource dataSource;
+
+    // detected from the JDBC URL (or the injected DataSource's metadata) when not set
+    Dialect dialect;
+
+    String poolName;
+
+    @Builder.Default
+    int maximumPoolSize = 10;
+
+    // negative keeps HikariCP's default of a fixed-size pool
+    @Builder.Default
+    int minimumIdle = -1;
+
+    @Builder.Default
+    Duration connectionTimeout = Duration.ofSeconds(30);
+
+    @Builder.Default
+    Duration idleTimeout = Duration.ofMinutes(10);
+
+    @Builder.Default
+    Duration maxLifetime = Duration.ofMinutes(30);
+
+    // zero disables leak detection
+    @Builder.Default
+    Duration leakDetectionThreshold = Duration.ZERO;
+
+    // the driver's per-connection statement cache, pgjdbc's preparedStatementCacheQueries on PostgreSQL
+    @Builder.Default
+    boolean cachePrepStmts = true;
+
+    @Builder.Default
+    int prepStmtCacheSize = 250;
+
+    // PostgreSQL only, pgjdbc defaults to 5 and 0 disables server-side prepared statements
+    @Builder.Default
+    int prepareThreshold = 1;
+
+    @Builder.Default
+    CrudMetrics metrics = CrudMetrics.NOOP;
+
+    // statements running at least this long are logged with redacted parameters, zero disables the log
+    @Builder.Default
+    Duration slowQueryThreshold = Duration.ZERO;
+
+    // applied with Statement#setQueryTimeout in whole seconds rounded up, zero keeps the driver's default of no timeout
+    @Builder.Default
+    Duration queryTimeout = Duration.ZERO;
+
+    // overrides queryTimeout for the listed operations
+    @Builder.Default
+    Map<CrudOperation, Duration> queryTimeouts = Map.of();
+
+    @Builder.Default
+    int batchSize = CrudController.DEFAULT_BATCH_SIZE;
+
+    @Builder.Default
+    int fetchSize = CrudController.DEFAULT_FETCH_SIZE;
+
+    public static CrudControllerConfig of(String jdbcUrl, String username, String password) {
+        return builder()
+            .jdbcUrl(jdbcUrl)
+            .username(username)
+            .password(password)
+            .build();
+    }
+
+}
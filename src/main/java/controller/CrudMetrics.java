@@ -0,0 +1,16 @@
+package controller;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// every hook defaults to a no-op, so NOOP costs a virtual call and nothing else
+public interface CrudMetrics {
+    CrudMetrics NOOP = new CrudMetrics() {};
+
+    default void recordLatency(CrudOperation operation, long nanos) {}
+    default void recordError(CrudOperation operation, String sqlState) {}
+    default void recordRowsAffected(CrudOperation operation, long rows) {}
+    default void recordPoolWait(long nanos) {}
+    default void recordPoolTimeout() {}
+    default void recordConnectionUsage(long millis) {}
+    default void bindPoolStats(String poolName, PoolStats poolStats) {}
+}
@@ -0,0 +1,30 @@
+package controller;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// pool wait is timed by CrudController itself, so it is also measured for injected DataSources
+class CrudMetricsTrackerFactory implements MetricsTrackerFactory {
+    private final CrudMetrics metrics;
+
+    CrudMetricsTrackerFactory(CrudMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        metrics.bindPoolStats(poolName, poolStats);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                metrics.recordConnectionUsage(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                metrics.recordPoolTimeout();
+            }
+        };
+    }
+}
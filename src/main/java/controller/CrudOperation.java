@@ -0,0 +1,19 @@
+package controller;
+
+public enum CrudOperation {
+    CREATE,
+    READ,
+    UPDATE,
+    DELETE,
+    UPSERT,
+    UPDATE_IF,
+    CREATE_ALL,
+    READ_MANY,
+    UPDATE_ALL,
+    UPSERT_ALL,
+    DELETE_ALL,
+    STREAM_ALL,
+    PAGE,
+    FIND_BY_USERNAME,
+    FIND_BY_USERNAME_PREFIX
+}
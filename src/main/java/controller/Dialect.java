@@ -0,0 +1,25 @@
+package controller;
+
+import lombok.val;
+
+import java.util.Locale;
+
+public enum Dialect {
+    POSTGRESQL,
+    H2,
+    GENERIC;
+
+    public static Dialect fromJdbcUrl(String url) {
+        if (url == null) {
+            return GENERIC;
+        }
+        val normalized = url.toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("jdbc:postgresql:")) {
+            return POSTGRESQL;
+        }
+        if (normalized.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        return GENERIC;
+    }
+}
@@ -0,0 +1,17 @@
+package controller;
+
+// both formats export in id order, like the result set the other dialects stream
+public enum ExportFormat {
+    CSV("COPY (SELECT id, username FROM users ORDER BY id) TO STDOUT WITH (FORMAT csv)"),
+    BINARY("COPY (SELECT id, username FROM users ORDER BY id) TO STDOUT WITH (FORMAT binary)");
+
+    private final String copySql;
+
+    ExportFormat(String copySql) {
+        this.copySql = copySql;
+    }
+
+    String copySql() {
+        return copySql;
+    }
+}
@@ -0,0 +1,64 @@
+package controller;
+
+import lombok.val;
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// H2 row trigger that records changes of the users table in the log table named after the trigger; the rows are written
+// inside the writing transaction, so the feed polling the log sees a change once it commits and never if it rolls back
+public class H2UserChangeTrigger implements Trigger {
+    static final String LOG_TABLE_SUFFIX = "_log";
+
+    private String insertSql;
+    private int idColumn;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName, boolean before, int type) throws SQLException {
+        insertSql = "INSERT INTO \"" + schemaName + "\".\"" + triggerName + LOG_TABLE_SUFFIX + "\"(id, operation) VALUES (?, ?)";
+        idColumn = idColumn(connection, schemaName, tableName);
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+        try (val statement = connection.prepareStatement(insertSql)) {
+            if (oldRow == null) {
+                record(statement, id(newRow), ChangeOperation.INSERT);
+            } else if (newRow == null) {
+                record(statement, id(oldRow), ChangeOperation.DELETE);
+            } else {
+                val oldId = id(oldRow);
+                val newId = id(newRow);
+                if (oldId != newId) {
+                    record(statement, oldId, ChangeOperation.DELETE);
+                }
+                record(statement, newId, ChangeOperation.UPDATE);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private int id(Object[] row) {
+        return ((Number) row[idColumn]).intValue();
+    }
+
+    private static void record(PreparedStatement statement, int id, ChangeOperation operation) throws SQLException {
+        statement.setInt(1, id);
+        statement.setString(2, String.valueOf(operation.code()));
+        statement.addBatch();
+    }
+
+    private static int idColumn(Connection connection, String schemaName, String tableName) throws SQLException {
+        try (val columns = connection.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (columns.next()) {
+                if ("id".equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                    return columns.getInt("ORDINAL_POSITION") - 1;
+                }
+            }
+        }
+        throw new SQLException("Table " + tableName + " has no id column");
+    }
+
+}
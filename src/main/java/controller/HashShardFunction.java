@@ -0,0 +1,28 @@
+package controller;
+
+record HashShardFunction(int shardCount) implements ShardFunction {
+
+    HashShardFunction {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+    }
+
+    @Override
+    public int shardFor(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+        return (id - 1) % shardCount;
+    }
+
+    @Override
+    public int firstId(int shard) {
+        return shard + 1;
+    }
+
+    @Override
+    public int idStep(int shard) {
+        return shardCount;
+    }
+}
@@ -0,0 +1,105 @@
+package controller;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.val;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HdrHistogramCrudMetrics implements CrudMetrics {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final String UNKNOWN_SQL_STATE = "unknown";
+
+    private final Map<CrudOperation, Histogram> latencies = new EnumMap<>(CrudOperation.class);
+    private final Map<CrudOperation, Map<String, LongAdder>> errors = new EnumMap<>(CrudOperation.class);
+    private final Map<CrudOperation, LongAdder> rowsAffected = new EnumMap<>(CrudOperation.class);
+    private final Histogram poolWait = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Histogram connectionUsage = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder poolTimeouts = new LongAdder();
+    private volatile PoolStats poolStats;
+
+    public HdrHistogramCrudMetrics() {
+        for (val operation : CrudOperation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            errors.put(operation, new ConcurrentHashMap<>());
+            rowsAffected.put(operation, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordLatency(CrudOperation operation, long nanos) {
+        latencies.get(operation).recordValue(nanos);
+    }
+
+    @Override
+    public void recordError(CrudOperation operation, String sqlState) {
+        errors.get(operation)
+            .computeIfAbsent(sqlState == null ? UNKNOWN_SQL_STATE : sqlState, state -> new LongAdder())
+            .increment();
+    }
+
+    @Override
+    public void recordRowsAffected(CrudOperation operation, long rows) {
+        rowsAffected.get(operation).add(rows);
+    }
+
+    @Override
+    public void recordPoolWait(long nanos) {
+        poolWait.recordValue(nanos);
+    }
+
+    @Override
+    public void recordPoolTimeout() {
+        poolTimeouts.increment();
+    }
+
+    @Override
+    public void recordConnectionUsage(long millis) {
+        connectionUsage.recordValue(millis);
+    }
+
+    @Override
+    public void bindPoolStats(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+    }
+
+    // histograms are copies, callers may read percentiles without racing recorders
+    public Histogram latency(CrudOperation operation) {
+        return latencies.get(operation).copy();
+    }
+
+    public long errorCount(CrudOperation operation, String sqlState) {
+        val count = errors.get(operation).get(sqlState == null ? UNKNOWN_SQL_STATE : sqlState);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long errorCount(CrudOperation operation) {
+        return errors.get(operation).values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long rowsAffected(CrudOperation operation) {
+        return rowsAffected.get(operation).sum();
+    }
+
+    public Histogram poolWait() {
+        return poolWait.copy();
+    }
+
+    public Histogram connectionUsage() {
+        return connectionUsage.copy();
+    }
+
+    public long poolTimeouts() {
+        return poolTimeouts.sum();
+    }
+
+    // empty until a CrudController owning a HikariCP pool has been built with these metrics
+    public Optional<PoolStats> poolStats() {
+        return Optional.ofNullable(poolStats);
+    }
+}
@@ -0,0 +1,247 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// no lambdas on the call path, so wrapping with CrudMetrics.NOOP adds no allocations
+public class InstrumentedCrud implements UserCRUD {
+    private final UserCRUD delegate;
+    private final CrudMetrics metrics;
+
+    public InstrumentedCrud(UserCRUD delegate, CrudMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics must not be null");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val id = delegate.create(record);
+            metrics.recordRowsAffected(CrudOperation.CREATE, 1);
+            return id;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.CREATE, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.CREATE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val record = delegate.read(id);
+            metrics.recordRowsAffected(CrudOperation.READ, record.isPresent() ? 1 : 0);
+            return record;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.READ, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.READ, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            delegate.update(id, record);
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.UPDATE, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.UPDATE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            delegate.delete(id);
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.DELETE, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.DELETE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            delegate.upsert(id, record);
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.UPSERT, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.UPSERT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val applied = delegate.updateIf(id, expected, replacement);
+            metrics.recordRowsAffected(CrudOperation.UPDATE_IF, applied ? 1 : 0);
+            return applied;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.UPDATE_IF, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.UPDATE_IF, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val records = delegate.readMany(ids);
+            metrics.recordRowsAffected(CrudOperation.READ_MANY, records.size());
+            return records;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.READ_MANY, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.READ_MANY, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val ids = delegate.createAll(records);
+            metrics.recordRowsAffected(CrudOperation.CREATE_ALL, ids.length);
+            return ids;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.CREATE_ALL, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.CREATE_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val updated = delegate.updateAll(records);
+            metrics.recordRowsAffected(CrudOperation.UPDATE_ALL, updated);
+            return updated;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.UPDATE_ALL, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.UPDATE_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val upserted = delegate.upsertAll(records);
+            metrics.recordRowsAffected(CrudOperation.UPSERT_ALL, upserted);
+            return upserted;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.UPSERT_ALL, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.UPSERT_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val deleted = delegate.deleteAll(ids);
+            metrics.recordRowsAffected(CrudOperation.DELETE_ALL, deleted);
+            return deleted;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.DELETE_ALL, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.DELETE_ALL, System.nanoTime() - start);
+        }
+    }
+
+    // only opening the cursor is timed, consuming the stream is up to the caller
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        val start = System.nanoTime();
+        try {
+            return delegate.streamAll();
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.STREAM_ALL, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.STREAM_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val entities = delegate.page(afterId, limit);
+            metrics.recordRowsAffected(CrudOperation.PAGE, entities.size());
+            return entities;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.PAGE, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.PAGE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val entity = delegate.findByUsername(username);
+            metrics.recordRowsAffected(CrudOperation.FIND_BY_USERNAME, entity.isPresent() ? 1 : 0);
+            return entity;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.FIND_BY_USERNAME, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.FIND_BY_USERNAME, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        val start = System.nanoTime();
+        try {
+            val entities = delegate.findByUsernamePrefix(prefix, limit);
+            metrics.recordRowsAffected(CrudOperation.FIND_BY_USERNAME_PREFIX, entities.size());
+            return entities;
+        } catch (SQLException e) {
+            metrics.recordError(CrudOperation.FIND_BY_USERNAME_PREFIX, e.getSQLState());
+            throw e;
+        } finally {
+            metrics.recordLatency(CrudOperation.FIND_BY_USERNAME_PREFIX, System.nanoTime() - start);
+        }
+    }
+}
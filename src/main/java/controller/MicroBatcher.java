@@ -0,0 +1,119 @@
+package controller;
+
+import lombok.val;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// collects single-id requests until maxBatch ids are pending or the window opened by the first one has passed,
+// then runs one call for the distinct ids; requests for the same id within a batch share its result
+// through copies of a future that never leaves the batcher, so no caller can complete or cancel it for the others
+class MicroBatcher<V> {
+    private final BatchCall<V> call;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+
+    private Map<Integer, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    // identifies the batch a scheduled flush was meant for, so it does not cut the next batch's window short
+    private long batchNumber;
+    private boolean closed;
+
+    MicroBatcher(BatchCall<V> call, long windowNanos, int maxBatch, ScheduledExecutorService scheduler, ExecutorService executor) {
+        this.call = call;
+        this.windowNanos = windowNanos;
+        this.maxBatch = maxBatch;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    CompletableFuture<V> submit(int id) {
+        Map<Integer, CompletableFuture<V>> full = null;
+        final CompletableFuture<V> future;
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Batcher is closed"));
+            }
+            val existing = pending.get(id);
+            if (existing != null) {
+                return existing.copy();
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (pending.size() >= maxBatch) {
+                full = takeBatch();
+            } else if (pending.size() == 1) {
+                val scheduledBatch = batchNumber;
+                scheduler.schedule(() -> flush(scheduledBatch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future.copy();
+    }
+
+    // runs whatever is pending and rejects later requests
+    void close() {
+        final Map<Integer, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            closed = true;
+            batch = pending.isEmpty() ? null : takeBatch();
+        }
+        if (batch != null) {
+            run(batch);
+        }
+    }
+
+    private void flush(long scheduledBatch) {
+        final Map<Integer, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (scheduledBatch != batchNumber || pending.isEmpty()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        dispatch(batch);
+    }
+
+    private Map<Integer, CompletableFuture<V>> takeBatch() {
+        val batch = pending;
+        pending = new LinkedHashMap<>();
+        batchNumber++;
+        return batch;
+    }
+
+    private void dispatch(Map<Integer, CompletableFuture<V>> batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void run(Map<Integer, CompletableFuture<V>> batch) {
+        try {
+            val results = call.execute(new ArrayList<>(batch.keySet()));
+            batch.forEach((id, future) -> future.complete(results.get(id)));
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @FunctionalInterface
+    interface BatchCall<V> {
+        // ids missing from the result complete with null
+        Map<Integer, V> execute(List<Integer> ids) throws SQLException;
+    }
+
+}
@@ -0,0 +1,329 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// holds the whole users table in process: point reads never touch the database, writes go to the database
+// first and then to the store. Writes made by other processes are not seen until the next warm-up.
+public class OffHeapCrud implements UserCRUD {
+    private static final Logger log = LoggerFactory.getLogger(OffHeapCrud.class);
+
+    private static final int WRITE_LOCK_STRIPES = 64;
+
+    private final CrudController delegate;
+    private final OffHeapUserStore store;
+    private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+    // keeps the database and the store applying writes to one id in the same order
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+
+    private OffHeapCrud(CrudController delegate, OffHeapUserStore store) {
+        this.delegate = delegate;
+        this.store = store;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // streams the table into the store before the instance is handed out, so no write can race the load
+    public static OffHeapCrud warmUp(CrudController delegate, int expectedSize) throws SQLException {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+
+        val store = new OffHeapUserStore(expectedSize);
+        val start = System.nanoTime();
+        try (val entities = delegate.streamAll()) {
+            entities.forEach(entity -> store.put(entity.id(), entity.record().username()));
+        }
+        log.info("Loaded {} users off-heap in {} ms ({} MiB off-heap, {} MiB index)", store.size(),
+            (System.nanoTime() - start) / 1_000_000, store.offHeapBytes() >> 20, store.indexBytes() >> 20);
+        return new OffHeapCrud(delegate, store);
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        val id = delegate.create(record);
+        val lock = writeLock(id);
+        lock.lock();
+        try {
+            put(id, record);
+        } finally {
+            lock.unlock();
+        }
+        return id;
+    }
+
+    @Override
+    public Optional<User> read(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be greater than 0");
+        }
+
+        val username = get(id);
+        return username == null ? Optional.empty() : Optional.of(new User(username));
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        val lock = writeLock(id);
+        lock.lock();
+        try {
+            delegate.update(id, record);
+            putIfPresent(id, record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        val lock = writeLock(id);
+        lock.lock();
+        try {
+            delegate.delete(id);
+            remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        val lock = writeLock(id);
+        lock.lock();
+        try {
+            delegate.upsert(id, record);
+            put(id, record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        val lock = writeLock(id);
+        lock.lock();
+        try {
+            val applied = delegate.updateIf(id, expected, replacement);
+            if (applied) {
+                put(id, replacement);
+            }
+            return applied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        val distinctIds = new LinkedHashSet<Integer>(ids);
+        for (val id : distinctIds) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("id must be greater than 0");
+            }
+        }
+
+        val users = new LinkedHashMap<Integer, User>();
+        storeLock.readLock().lock();
+        try {
+            for (val id : distinctIds) {
+                val username = store.get(id);
+                if (username != null) {
+                    users.put(id, new User(username));
+                }
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        return users;
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        val ids = delegate.createAll(records);
+        lockAllWrites();
+        try {
+            storeLock.writeLock().lock();
+            try {
+                var i = 0;
+                for (val record : records) {
+                    store.put(ids[i++], record.username());
+                }
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+        } finally {
+            unlockAllWrites();
+        }
+        return ids;
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        lockAllWrites();
+        try {
+            val updated = delegate.updateAll(records);
+            storeLock.writeLock().lock();
+            try {
+                records.forEach((id, record) -> {
+                    if (store.contains(id)) {
+                        store.put(id, record.username());
+                    }
+                });
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+            return updated;
+        } finally {
+            unlockAllWrites();
+        }
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        lockAllWrites();
+        try {
+            val upserted = delegate.upsertAll(records);
+            storeLock.writeLock().lock();
+            try {
+                records.forEach((id, record) -> store.put(id, record.username()));
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+            return upserted;
+        } finally {
+            unlockAllWrites();
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        lockAllWrites();
+        try {
+            val deleted = delegate.deleteAll(ids);
+            storeLock.writeLock().lock();
+            try {
+                Arrays.stream(ids).forEach(store::remove);
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+            return deleted;
+        } finally {
+            unlockAllWrites();
+        }
+    }
+
+    // the index has no id order, so ordered scans stay on the database
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        return delegate.page(afterId, limit);
+    }
+
+    // the store is indexed by id only, so username lookups use the database's username index
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        return delegate.findByUsernamePrefix(prefix, limit);
+    }
+
+    public int size() {
+        storeLock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        storeLock.readLock().lock();
+        try {
+            return store.offHeapBytes();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private String get(int id) {
+        storeLock.readLock().lock();
+        try {
+            return store.get(id);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private void put(int id, User record) {
+        storeLock.writeLock().lock();
+        try {
+            store.put(id, record.username());
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    // an update of a missing id changes no row, so it must not create one in the store either
+    private void putIfPresent(int id, User record) {
+        storeLock.writeLock().lock();
+        try {
+            if (store.contains(id)) {
+                store.put(id, record.username());
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private void remove(int id) {
+        storeLock.writeLock().lock();
+        try {
+            store.remove(id);
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private ReentrantLock writeLock(int id) {
+        return writeLocks[Math.floorMod(id, WRITE_LOCK_STRIPES)];
+    }
+
+    // bulk writes touch arbitrary stripes, taking all of them in index order cannot deadlock
+    private void lockAllWrites() {
+        for (val lock : writeLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllWrites() {
+        for (int i = writeLocks.length - 1; i >= 0; i--) {
+            writeLocks[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package controller;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// int-keyed open-addressing index (linear probing, backward-shift deletes) over usernames stored as UTF-8 in
+// direct buffers; a slot costs 12 bytes of heap and no per-entry objects. Not thread-safe, callers lock.
+final class OffHeapUserStore {
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int EMPTY = 0;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final double MAXIMUM_LOAD = 0.7;
+    // a location packs chunk index (24 bits), offset in the chunk (24 bits) and length (16 bits)
+    private static final int MAXIMUM_CHUNK_SIZE = 1 << 24;
+    private static final int MAXIMUM_LENGTH = 0xFFFF;
+
+    private final int chunkSize;
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private int writeOffset;
+    private long usedBytes;
+    private long liveBytes;
+
+    private int[] keys;
+    private long[] locations;
+    private int mask;
+    private int size;
+
+    OffHeapUserStore(int expectedSize) {
+        this(expectedSize, DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapUserStore(int expectedSize, int chunkSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        if (chunkSize <= 0 || chunkSize > MAXIMUM_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAXIMUM_CHUNK_SIZE);
+        }
+
+        this.chunkSize = chunkSize;
+        allocateIndex(capacityFor(expectedSize));
+    }
+
+    String get(int id) {
+        val slot = slotOf(id);
+        return slot < 0 ? null : decode(locations[slot]);
+    }
+
+    boolean contains(int id) {
+        return slotOf(id) >= 0;
+    }
+
+    void put(int id, String username) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+
+        val location = encode(username);
+        var slot = home(id);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                liveBytes -= length(locations[slot]);
+                locations[slot] = location;
+                compactIfWasteful();
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        locations[slot] = location;
+        size++;
+        if (size > keys.length * MAXIMUM_LOAD) {
+            resize(keys.length * 2);
+        }
+    }
+
+    boolean remove(int id) {
+        val slot = slotOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        liveBytes -= length(locations[slot]);
+
+        // shift later entries of the probe run back so lookups never need tombstones
+        var hole = slot;
+        var next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            val home = home(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                locations[hole] = locations[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        locations[hole] = 0;
+        size--;
+        compactIfWasteful();
+        return true;
+    }
+
+    void clear() {
+        chunks = new ArrayList<>();
+        writeOffset = 0;
+        usedBytes = 0;
+        liveBytes = 0;
+        allocateIndex(keys.length);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long offHeapBytes() {
+        return (long) chunks.size() * chunkSize;
+    }
+
+    long indexBytes() {
+        return (long) keys.length * (Integer.BYTES + Long.BYTES);
+    }
+
+    private int slotOf(int id) {
+        if (id <= 0) {
+            return -1;
+        }
+        var slot = home(id);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int home(int id) {
+        val hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private long encode(String username) {
+        val bytes = username.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAXIMUM_LENGTH || bytes.length > chunkSize) {
+            throw new IllegalArgumentException("Username is too long to store off-heap");
+        }
+        if (chunks.isEmpty() || chunkSize - writeOffset < bytes.length) {
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            writeOffset = 0;
+        }
+
+        val chunkIndex = chunks.size() - 1;
+        chunks.get(chunkIndex).put(writeOffset, bytes);
+        val location = ((long) chunkIndex << 40) | ((long) writeOffset << 16) | bytes.length;
+        writeOffset += bytes.length;
+        usedBytes += bytes.length;
+        liveBytes += bytes.length;
+        return location;
+    }
+
+    private String decode(long location) {
+        val bytes = new byte[length(location)];
+        chunks.get((int) (location >>> 40)).get((int) (location >>> 16) & (MAXIMUM_CHUNK_SIZE - 1), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int length(long location) {
+        return (int) (location & MAXIMUM_LENGTH);
+    }
+
+    // overwritten and deleted usernames leave dead bytes behind, rewrite the live ones once they are the minority
+    private void compactIfWasteful() {
+        if (usedBytes <= chunkSize || usedBytes <= 2 * liveBytes) {
+            return;
+        }
+        val oldChunks = chunks;
+        chunks = new ArrayList<>();
+        writeOffset = 0;
+        usedBytes = 0;
+        liveBytes = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                val location = locations[slot];
+                val bytes = new byte[length(location)];
+                oldChunks.get((int) (location >>> 40)).get((int) (location >>> 16) & (MAXIMUM_CHUNK_SIZE - 1), bytes);
+                locations[slot] = encode(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Off-heap user index is full");
+        }
+        val oldKeys = keys;
+        val oldLocations = locations;
+        allocateIndex(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                var target = home(oldKeys[slot]);
+                while (keys[target] != EMPTY) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = oldKeys[slot];
+                locations[target] = oldLocations[slot];
+            }
+        }
+    }
+
+    private void allocateIndex(int capacity) {
+        keys = new int[capacity];
+        locations = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        val minimum = (long) Math.ceil(Math.max(expectedSize, 16) / MAXIMUM_LOAD);
+        if (minimum > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Expected size is too large");
+        }
+        return Integer.highestOneBit((int) Math.max(minimum - 1, 1)) << 1;
+    }
+}
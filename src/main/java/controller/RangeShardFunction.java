@@ -0,0 +1,44 @@
+package controller;
+
+import java.util.Arrays;
+
+record RangeShardFunction(int[] upperBounds) implements ShardFunction {
+
+    RangeShardFunction {
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= 0 || upperBounds[i] == Integer.MAX_VALUE || i > 0 && upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Upper bounds must be positive and strictly ascending");
+            }
+        }
+    }
+
+    @Override
+    public int shardCount() {
+        return upperBounds.length + 1;
+    }
+
+    @Override
+    public int shardFor(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+        // binarySearch returns the bound's index on a hit and -(insertion point) - 1 otherwise
+        int index = Arrays.binarySearch(upperBounds, id);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @Override
+    public int firstId(int shard) {
+        return shard == 0 ? 1 : upperBounds[shard - 1] + 1;
+    }
+
+    @Override
+    public int idStep(int shard) {
+        return 1;
+    }
+
+    @Override
+    public int lastId(int shard) {
+        return shard < upperBounds.length ? upperBounds[shard] : Integer.MAX_VALUE;
+    }
+}
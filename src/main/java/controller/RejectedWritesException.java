@@ -0,0 +1,25 @@
+package controller;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+
+// buffered writes the database refused for good, by id; the other writes of the same flush were applied
+public class RejectedWritesException extends SQLException {
+    private final transient Map<Integer, SQLException> failures;
+
+    public RejectedWritesException(Map<Integer, SQLException> failures) {
+        super("Database rejected buffered writes for ids " + failures.keySet(), failures.values().iterator().next().getSQLState());
+        this.failures = Map.copyOf(failures);
+        failures.values().forEach(this::addSuppressed);
+    }
+
+    public Set<Integer> failedIds() {
+        return failures.keySet();
+    }
+
+    public Map<Integer, SQLException> failures() {
+        return failures;
+    }
+
+}
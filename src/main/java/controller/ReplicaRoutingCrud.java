@@ -0,0 +1,284 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// writes go to the primary, reads to a replica unless the calling thread wrote within the read-your-writes window
+public class ReplicaRoutingCrud implements UserCRUD {
+    private final UserCRUD primary;
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final long readYourWritesNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+
+    public ReplicaRoutingCrud(UserCRUD primary, List<? extends UserCRUD> replicas, ReplicaSelection selection, Duration readYourWritesWindow) {
+        if (primary == null) {
+            throw new IllegalArgumentException("Primary must not be null");
+        }
+        if (replicas == null || replicas.contains(null)) {
+            throw new IllegalArgumentException("Replicas must not be null");
+        }
+        if (selection == null) {
+            throw new IllegalArgumentException("Replica selection must not be null");
+        }
+        if (readYourWritesWindow.isNegative()) {
+            throw new IllegalArgumentException("Read-your-writes window must not be negative");
+        }
+
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.selection = selection;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+    }
+
+    // the DataSources stay owned by the caller, the controllers built on them hold no pools of their own
+    public static ReplicaRoutingCrud forDataSources(DataSource primary, List<DataSource> replicas, ReplicaSelection selection, Duration readYourWritesWindow) {
+        if (primary == null) {
+            throw new IllegalArgumentException("Primary must not be null");
+        }
+        if (replicas == null || replicas.contains(null)) {
+            throw new IllegalArgumentException("Replicas must not be null");
+        }
+        return new ReplicaRoutingCrud(
+            new CrudController(primary),
+            replicas.stream().map(CrudController::new).toList(),
+            selection,
+            readYourWritesWindow
+        );
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        try {
+            return primary.create(record);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.read(id);
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.read(id);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        try {
+            primary.update(id, record);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        try {
+            primary.delete(id);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        try {
+            primary.upsert(id, record);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    // the comparison has to see the latest committed row, so it never runs against a lagging replica
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        try {
+            return primary.updateIf(id, expected, replacement);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.readMany(ids);
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.readMany(ids);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        try {
+            return primary.createAll(records);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        try {
+            return primary.updateAll(records);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        try {
+            return primary.upsertAll(records);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        try {
+            return primary.deleteAll(ids);
+        } finally {
+            recordWrite();
+        }
+    }
+
+    // the replica counts as busy until the caller closes the stream
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.streamAll();
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.streamAll().onClose(replica.inFlight::decrementAndGet);
+        } catch (SQLException | RuntimeException e) {
+            replica.inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.page(afterId, limit);
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.page(afterId, limit);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.findByUsername(username);
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.findByUsername(username);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        val replica = replicaForRead();
+        if (replica == null) {
+            return primary.findByUsernamePrefix(prefix, limit);
+        }
+        replica.inFlight.incrementAndGet();
+        try {
+            return replica.crud.findByUsernamePrefix(prefix, limit);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    // null routes the read to the primary
+    private Replica replicaForRead() {
+        if (replicas.isEmpty() || isPinnedToPrimary()) {
+            return null;
+        }
+        return switch (selection) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            case LEAST_CONNECTIONS -> leastBusyReplica();
+        };
+    }
+
+    // ties start from a rotating offset so idle replicas share the load
+    private Replica leastBusyReplica() {
+        val offset = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        Replica leastBusy = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            val replica = replicas.get((offset + i) % replicas.size());
+            if (leastBusy == null || replica.inFlight.get() < leastBusy.inFlight.get()) {
+                leastBusy = replica;
+            }
+        }
+        return leastBusy;
+    }
+
+    private boolean isPinnedToPrimary() {
+        if (readYourWritesNanos == 0) {
+            return false;
+        }
+        val lastWrite = lastWriteNanos.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+            return true;
+        }
+        lastWriteNanos.remove();
+        return false;
+    }
+
+    // failed writes pin as well, a statement can fail after the primary applied it
+    private void recordWrite() {
+        if (readYourWritesNanos > 0) {
+            lastWriteNanos.set(System.nanoTime());
+        }
+    }
+
+    private static final class Replica {
+        private final UserCRUD crud;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Replica(UserCRUD crud) {
+            this.crud = crud;
+        }
+    }
+}
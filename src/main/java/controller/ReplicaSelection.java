@@ -0,0 +1,7 @@
+package controller;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    // fewest reads in flight through this router, streams count until they are closed
+    LEAST_CONNECTIONS
+}
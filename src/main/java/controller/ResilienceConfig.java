@@ -0,0 +1,43 @@
+package controller;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder(toBuilder = true)
+public class ResilienceConfig {
+
+    // attempts per idempotent call including the first, 1 disables retries
+    @Builder.Default
+    int maxAttempts = 3;
+
+    // backoff before attempt n is a random duration up to min(maxBackoff, initialBackoff * 2^(n - 2))
+    @Builder.Default
+    Duration initialBackoff = Duration.ofMillis(50);
+
+    @Builder.Default
+    Duration maxBackoff = Duration.ofSeconds(1);
+
+    // consecutive transient failures that open the circuit
+    @Builder.Default
+    int failureThreshold = 5;
+
+    // how long an open circuit fails fast before letting a single trial call through
+    @Builder.Default
+    Duration openDuration = Duration.ofSeconds(5);
+
+    // in-flight calls, best kept at or below the pool size so callers queue here instead of in the pool
+    @Builder.Default
+    int maxConcurrentCalls = 10;
+
+    // zero rejects a call right away when the bulkhead is full
+    @Builder.Default
+    Duration maxBulkheadWait = Duration.ofMillis(100);
+
+    public static ResilienceConfig defaults() {
+        return builder().build();
+    }
+
+}
@@ -0,0 +1,246 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// bulkhead -> circuit breaker -> delegate, with jittered retries of idempotent calls that failed transiently;
+// statement timeouts are set by CrudController itself, see CrudControllerConfig#queryTimeouts
+public class ResilientCrud implements UserCRUD {
+    private static final Logger log = LoggerFactory.getLogger(ResilientCrud.class);
+
+    private final UserCRUD delegate;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int maxConcurrentCalls;
+    private final long maxBulkheadWaitNanos;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public ResilientCrud(UserCRUD delegate) {
+        this(delegate, ResilienceConfig.defaults());
+    }
+
+    public ResilientCrud(UserCRUD delegate, ResilienceConfig config) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (config.getMaxAttempts() <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        if (config.getInitialBackoff().isNegative() || config.getMaxBackoff().compareTo(config.getInitialBackoff()) < 0) {
+            throw new IllegalArgumentException("Backoff must not be negative and max backoff must not be below initial backoff");
+        }
+        if (config.getFailureThreshold() <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        if (config.getOpenDuration().isNegative() || config.getOpenDuration().isZero()) {
+            throw new IllegalArgumentException("Open duration must be positive");
+        }
+        if (config.getMaxConcurrentCalls() <= 0) {
+            throw new IllegalArgumentException("Max concurrent calls must be positive");
+        }
+        if (config.getMaxBulkheadWait().isNegative()) {
+            throw new IllegalArgumentException("Max bulkhead wait must not be negative");
+        }
+
+        this.delegate = delegate;
+        this.maxAttempts = config.getMaxAttempts();
+        this.initialBackoffNanos = config.getInitialBackoff().toNanos();
+        this.maxBackoffNanos = config.getMaxBackoff().toNanos();
+        this.maxConcurrentCalls = config.getMaxConcurrentCalls();
+        this.maxBulkheadWaitNanos = config.getMaxBulkheadWait().toNanos();
+        this.bulkhead = new Semaphore(maxConcurrentCalls, true);
+        this.circuitBreaker = new CircuitBreaker(config.getFailureThreshold(), config.getOpenDuration().toNanos());
+    }
+
+    // a retried INSERT could have committed before its connection failed, so creates are never retried
+    @Override
+    public int create(User record) throws SQLException {
+        return call(false, () -> delegate.create(record));
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        return call(true, () -> delegate.read(id));
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        call(true, () -> {
+            delegate.update(id, record);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        call(true, () -> {
+            delegate.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        call(true, () -> {
+            delegate.upsert(id, record);
+            return null;
+        });
+    }
+
+    // a retry after a lost acknowledgement would report false for a swap that happened
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        return call(false, () -> delegate.updateIf(id, expected, replacement));
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        return call(true, () -> delegate.readMany(ids));
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        return call(false, () -> delegate.createAll(records));
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        return call(true, () -> delegate.updateAll(records));
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        return call(true, () -> delegate.upsertAll(records));
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        return call(true, () -> delegate.deleteAll(ids));
+    }
+
+    // guards opening the stream only, rows read afterwards are outside the bulkhead
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        return call(true, delegate::streamAll);
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        return call(true, () -> delegate.page(afterId, limit));
+    }
+
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        return call(true, () -> delegate.findByUsername(username));
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        return call(true, () -> delegate.findByUsernamePrefix(prefix, limit));
+    }
+
+    public int inFlightCalls() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    private <R> R call(boolean idempotent, SqlCall<R> call) throws SQLException {
+        acquirePermit();
+        try {
+            SQLException lastFailure = null;
+            for (int attempt = 1; ; attempt++) {
+                if (!circuitBreaker.tryAcquire()) {
+                    val open = new SQLTransientConnectionException("Circuit breaker is open, failing fast");
+                    if (lastFailure != null) {
+                        open.addSuppressed(lastFailure);
+                    }
+                    throw open;
+                }
+
+                try {
+                    val result = call.execute();
+                    circuitBreaker.onSuccess();
+                    return result;
+                } catch (SQLException e) {
+                    if (!isTransient(e)) {
+                        // the database answered, so it is up
+                        circuitBreaker.onSuccess();
+                        throw e;
+                    }
+                    circuitBreaker.onFailure();
+                    if (!idempotent || attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    log.debug("Attempt {} of {} failed with SQLState {}, retrying", attempt, maxAttempts, e.getSQLState());
+                    lastFailure = e;
+                    backOff(attempt, e);
+                } catch (RuntimeException e) {
+                    circuitBreaker.onIgnored();
+                    throw e;
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!bulkhead.tryAcquire(maxBulkheadWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientException("Bulkhead is full, " + maxConcurrentCalls + " calls in flight");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientException("Interrupted while waiting for the bulkhead", e);
+        }
+    }
+
+    // full jitter keeps retries of many callers that failed together from arriving together
+    private void backOff(int attempt, SQLException failure) throws SQLException {
+        val ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    // class 08 covers lost and refused connections, 40001 and 40P01 are serialization failures and deadlocks;
+    // SQLTransientException also covers query timeouts and HikariCP's connection timeout
+    static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        val sqlState = e.getSQLState();
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.equals("40001") || sqlState.equals("40P01"));
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<R> {
+        R execute() throws SQLException;
+    }
+
+}
@@ -0,0 +1,29 @@
+package controller;
+
+// maps ids to shards and lays out each shard's id sequence so that sequences of different shards never overlap
+public interface ShardFunction {
+    int shardCount();
+
+    int shardFor(int id);
+
+    int firstId(int shard);
+
+    int idStep(int shard);
+
+    // the last id of the shard's sequence, the database refuses to generate ids past it
+    default int lastId(int shard) {
+        int firstId = firstId(shard);
+        int step = idStep(shard);
+        return firstId + (Integer.MAX_VALUE - firstId) / step * step;
+    }
+
+    // shard k owns the ids k + 1, k + 1 + shardCount, ..., so consecutive ids spread evenly over the shards
+    static ShardFunction hash(int shardCount) {
+        return new HashShardFunction(shardCount);
+    }
+
+    // shard k owns the ids above upperBounds[k - 1] up to upperBounds[k], the last shard owns the rest
+    static ShardFunction range(int... upperBounds) {
+        return new RangeShardFunction(upperBounds.clone());
+    }
+}
@@ -0,0 +1,465 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// every id lives on the shard the shard function names; multi-shard operations run on the shards in parallel
+// and are not atomic across shards, only createAll deletes the parts that went through when another shard fails
+public class ShardedCrud implements UserCRUD, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ShardedCrud.class);
+
+    private final List<CrudController> shards;
+    private final ShardFunction shardFunction;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    // shards whose id sequence reached the shard function's last id, creates skip them
+    private final Set<Integer> exhaustedShards = ConcurrentHashMap.newKeySet();
+
+    private ShardedCrud(List<CrudController> shards, ShardFunction shardFunction, Set<Integer> exhaustedShards) {
+        this.shards = shards;
+        this.shardFunction = shardFunction;
+        this.exhaustedShards.addAll(exhaustedShards);
+        val threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            val thread = new Thread(runnable, "shard-fan-out-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // restarts each shard's id sequence on the ids the shard function assigns to it and caps it at the shard's last id,
+    // so creates never collide and the database refuses ids that would belong to another shard
+    public static ShardedCrud of(List<CrudController> shards, ShardFunction shardFunction) throws SQLException {
+        if (shards == null || shards.isEmpty() || shards.contains(null)) {
+            throw new IllegalArgumentException("Shards must not be null or empty");
+        }
+        if (shardFunction == null) {
+            throw new IllegalArgumentException("Shard function must not be null");
+        }
+        if (shardFunction.shardCount() != shards.size()) {
+            throw new IllegalArgumentException("Shard function expects " + shardFunction.shardCount() + " shards, got " + shards.size());
+        }
+
+        val exhaustedShards = new LinkedHashSet<Integer>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            val idsLeft = shards.get(shard).alignIdSequence(shardFunction.firstId(shard), shardFunction.idStep(shard),
+                shardFunction.lastId(shard));
+            if (!idsLeft) {
+                exhaustedShards.add(shard);
+            }
+        }
+        if (exhaustedShards.size() == shards.size()) {
+            throw new IllegalStateException("Every shard has run out of ids");
+        }
+        return new ShardedCrud(List.copyOf(shards), shardFunction, exhaustedShards);
+    }
+
+    // creates go round the shards with ids left in turn; a shard that runs out is skipped from then on
+    // and the create moves on to the next one, its refused insert left nothing behind
+    @Override
+    public int create(User record) throws SQLException {
+        while (true) {
+            val shard = nextShard();
+            try {
+                return shards.get(shard).create(record);
+            } catch (SQLException e) {
+                if (!CrudController.isSequenceExhausted(e)) {
+                    throw e;
+                }
+                exhaustedShards.add(shard);
+            }
+        }
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be greater than 0");
+        }
+        return shardOf(id).read(id);
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        shardOf(id).update(id, record);
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        shardOf(id).delete(id);
+    }
+
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        shardOf(id).upsert(id, record);
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        return shardOf(id).updateIf(id, expected, replacement);
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        val distinctIds = new LinkedHashSet<Integer>(ids);
+        for (val id : distinctIds) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("id must be greater than 0");
+            }
+        }
+
+        val idsByShard = new HashMap<Integer, List<Integer>>();
+        for (val id : distinctIds) {
+            idsByShard.computeIfAbsent(shardFunction.shardFor(id), shard -> new ArrayList<>()).add(id);
+        }
+        val found = new HashMap<Integer, User>(distinctIds.size() * 2);
+        for (val users : fanOut(idsByShard, (shard, shardIds) -> shard.readMany(shardIds))) {
+            found.putAll(users);
+        }
+
+        val users = new LinkedHashMap<Integer, User>(found.size() * 2);
+        for (val id : distinctIds) {
+            val user = found.get(id);
+            if (user != null) {
+                users.put(id, user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+
+        // deal the records round the shards and remember where each one came from
+        val recordsByShard = new HashMap<Integer, List<User>>();
+        val positionsByShard = new HashMap<Integer, List<Integer>>();
+        var position = 0;
+        for (val record : records) {
+            val shard = nextShard();
+            recordsByShard.computeIfAbsent(shard, ignored -> new ArrayList<>()).add(record);
+            positionsByShard.computeIfAbsent(shard, ignored -> new ArrayList<>()).add(position++);
+        }
+
+        // a shard that ran out rolls its part back and is skipped by later creates
+        val idsByShard = new HashMap<Integer, int[]>(recordsByShard.size() * 2);
+        val failures = callByShard(recordsByShard, (shard, shardRecords) -> {
+            try {
+                return shard.createAll(shardRecords);
+            } catch (SQLException e) {
+                if (CrudController.isSequenceExhausted(e)) {
+                    exhaustedShards.add(shards.indexOf(shard));
+                }
+                throw e;
+            }
+        }, idsByShard);
+        if (!failures.isEmpty()) {
+            // every shard commits its part on its own, so the parts that went through are deleted to fail the call as a whole
+            for (val entry : idsByShard.entrySet()) {
+                try {
+                    shards.get(entry.getKey()).deleteAll(entry.getValue());
+                } catch (SQLException | RuntimeException e) {
+                    log.warn("Could not delete users {} left on shard {} by a failed createAll",
+                        Arrays.toString(entry.getValue()), entry.getKey(), e);
+                    failures.add(e);
+                }
+            }
+            throwFirst(failures);
+        }
+        val ids = new int[records.size()];
+        for (val entry : idsByShard.entrySet()) {
+            val positions = positionsByShard.get(entry.getKey());
+            val shardIds = entry.getValue();
+            for (int i = 0; i < shardIds.length; i++) {
+                ids[positions.get(i)] = shardIds[i];
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        return sum(fanOut(splitByShard(records), CrudController::updateAll));
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        return sum(fanOut(splitByShard(records), CrudController::upsertAll));
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+
+        val idsByShard = new HashMap<Integer, List<Integer>>();
+        for (val id : ids) {
+            idsByShard.computeIfAbsent(shardIndexOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        return sum(fanOut(idsByShard, (shard, shardIds) ->
+            shard.deleteAll(shardIds.stream().mapToInt(Integer::intValue).toArray())));
+    }
+
+    // every shard streams in id order, so a k-way merge keeps the whole stream in id order
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        val futures = submitAll(everyShard(), (shard, ignored) -> shard.streamAll());
+
+        val streams = new ArrayList<Stream<Entity<User>>>(futures.size());
+        val failures = new ArrayList<Throwable>();
+        for (val future : futures) {
+            try {
+                streams.add(future.join());
+            } catch (CompletionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            streams.forEach(Stream::close);
+            throwFirst(failures);
+        }
+
+        val merged = new MergingIterator(streams.stream().map(Stream::iterator).toList());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        if (afterId < 0) {
+            throw new IllegalArgumentException("afterId must not be negative");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        val entities = new ArrayList<Entity<User>>();
+        for (val page : fanOut(everyShard(), (shard, ignored) -> shard.page(afterId, limit))) {
+            entities.addAll(page);
+        }
+        entities.sort(Comparator.comparingInt(Entity::id));
+        return entities.size() > limit ? new ArrayList<>(entities.subList(0, limit)) : entities;
+    }
+
+    // usernames are unique per shard only, so a name stored on several shards resolves to its lowest id
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+
+        return fanOut(everyShard(), (shard, ignored) -> shard.findByUsername(username)).stream()
+            .flatMap(Optional::stream)
+            .min(Comparator.comparingInt(Entity::id));
+    }
+
+    // merges the shards' ordered pages in Java string order, which matches the database's under C collation
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix must not be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        val entities = new ArrayList<Entity<User>>();
+        for (val page : fanOut(everyShard(), (shard, ignored) -> shard.findByUsernamePrefix(prefix, limit))) {
+            entities.addAll(page);
+        }
+        entities.sort(Comparator.comparing((Entity<User> entity) -> entity.record().username()).thenComparingInt(Entity::id));
+        return entities.size() > limit ? new ArrayList<>(entities.subList(0, limit)) : entities;
+    }
+
+    // stops the fan-out threads, the shard controllers stay open for their owner to close
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private int nextShard() {
+        for (int attempt = 0; attempt < shards.size(); attempt++) {
+            val shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+            if (!exhaustedShards.contains(shard)) {
+                return shard;
+            }
+        }
+        throw new IllegalStateException("Every shard has run out of ids");
+    }
+
+    private CrudController shardOf(int id) {
+        return shards.get(shardIndexOf(id));
+    }
+
+    private int shardIndexOf(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+        return shardFunction.shardFor(id);
+    }
+
+    private Map<Integer, Map<Integer, User>> splitByShard(Map<Integer, User> records) {
+        val recordsByShard = new HashMap<Integer, Map<Integer, User>>();
+        records.forEach((id, record) ->
+            recordsByShard.computeIfAbsent(shardIndexOf(id), shard -> new LinkedHashMap<>()).put(id, record));
+        return recordsByShard;
+    }
+
+    private <A, R> List<R> fanOut(Map<Integer, A> argumentsByShard, ShardCall<A, R> call) throws SQLException {
+        return new ArrayList<>(fanOutByShard(argumentsByShard, call).values());
+    }
+
+    private <A, R> Map<Integer, R> fanOutByShard(Map<Integer, A> argumentsByShard, ShardCall<A, R> call) throws SQLException {
+        val results = new HashMap<Integer, R>(argumentsByShard.size() * 2);
+        val failures = callByShard(argumentsByShard, call, results);
+        if (!failures.isEmpty()) {
+            throwFirst(failures);
+        }
+        return results;
+    }
+
+    // a single shard runs on the calling thread; otherwise waits for every shard, puts what succeeded into results
+    // and returns the failures of the others
+    private <A, R> List<Throwable> callByShard(Map<Integer, A> argumentsByShard, ShardCall<A, R> call, Map<Integer, R> results) throws SQLException {
+        val failures = new ArrayList<Throwable>();
+        if (argumentsByShard.size() == 1) {
+            val entry = argumentsByShard.entrySet().iterator().next();
+            results.put(entry.getKey(), call.call(shards.get(entry.getKey()), entry.getValue()));
+            return failures;
+        }
+
+        val shardIndexes = new ArrayList<>(argumentsByShard.keySet());
+        val futures = submitAll(argumentsByShard, call);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.put(shardIndexes.get(i), futures.get(i).join());
+            } catch (CompletionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    private <A, R> List<CompletableFuture<R>> submitAll(Map<Integer, A> argumentsByShard, ShardCall<A, R> call) {
+        val futures = new ArrayList<CompletableFuture<R>>(argumentsByShard.size());
+        for (val entry : argumentsByShard.entrySet()) {
+            val shard = shards.get(entry.getKey());
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.call(shard, entry.getValue());
+                } catch (SQLException e) {
+                    throw new UncheckedSqlException(e);
+                }
+            }, executor));
+        }
+        return futures;
+    }
+
+    // the first failure is thrown with the others suppressed, SQL failures surface as SQLException again
+    private static void throwFirst(List<Throwable> failures) throws SQLException {
+        val unwrapped = failures.stream()
+            .map(failure -> failure instanceof UncheckedSqlException unchecked ? unchecked.getCause() : failure)
+            .toList();
+        val first = unwrapped.get(0);
+        unwrapped.subList(1, unwrapped.size()).forEach(first::addSuppressed);
+        if (first instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (first instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw (Error) first;
+    }
+
+    // no per-shard argument, the call only needs the shard
+    private Map<Integer, Void> everyShard() {
+        val everyShard = new HashMap<Integer, Void>(shards.size() * 2);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            everyShard.put(shard, null);
+        }
+        return everyShard;
+    }
+
+    private static int sum(List<Integer> counts) {
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @FunctionalInterface
+    private interface ShardCall<A, R> {
+        R call(CrudController shard, A argument) throws SQLException;
+    }
+
+    private static final class MergingIterator implements Iterator<Entity<User>> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingInt(head -> head.entity.id()));
+
+        private MergingIterator(List<Iterator<Entity<User>>> iterators) {
+            for (val iterator : iterators) {
+                advance(iterator);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Entity<User> next() {
+            val head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.iterator);
+            return head.entity;
+        }
+
+        private void advance(Iterator<Entity<User>> iterator) {
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        private record Head(Entity<User> entity, Iterator<Entity<User>> iterator) {}
+    }
+}
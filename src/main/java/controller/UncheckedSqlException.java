@@ -0,0 +1,16 @@
+package controller;
+
+import java.sql.SQLException;
+
+public class UncheckedSqlException extends RuntimeException {
+
+    public UncheckedSqlException(SQLException cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+
+}
@@ -0,0 +1,16 @@
+package controller;
+
+import model.Entity;
+import model.User;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+// every User store and decorator implements the lookups, so wrapping one that cannot serve them does not compile
+public interface UserCRUD extends CRUD<User> {
+    Optional<Entity<User>> findByUsername(String username) throws SQLException;
+
+    // ordered by username
+    List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException;
+}
@@ -0,0 +1,20 @@
+package controller;
+
+import lombok.val;
+
+// version grows with every change a feed sees, so the higher version of two changes to one id is the later one
+public record UserChange(
+    int id,
+    ChangeOperation operation,
+    long version
+) {
+
+    // PostgreSQL notification payload written by notify_users_change(): <operation code>,<id>,<version>
+    static UserChange fromPayload(String payload) {
+        val parts = payload.split(",", 3);
+        if (parts.length != 3 || parts[0].length() != 1) {
+            throw new IllegalArgumentException("Malformed user change payload: " + payload);
+        }
+        return new UserChange(Integer.parseInt(parts[1]), ChangeOperation.fromCode(parts[0].charAt(0)), Long.parseLong(parts[2]));
+    }
+}
@@ -0,0 +1,347 @@
+package controller;
+
+import lombok.val;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// publishes changes of the users table made by any client of the database, in batches holding the latest change per id
+// PostgreSQL: LISTENs on the channel fed by the users_change_notify trigger from users_schema.sql, holding one pooled connection
+// H2: installs its own row trigger and change log table for the lifetime of the feed and polls the log, holding one pooled
+// connection; changes are published once their transaction committed, see H2UserChangeTrigger
+public class UserChangeFeed implements Flow.Publisher<List<UserChange>>, AutoCloseable {
+    public static final String CHANNEL = "users_changes";
+    public static final Duration DEFAULT_COALESCE_WINDOW = Duration.ofMillis(10);
+    public static final int DEFAULT_MAX_BATCH = 256;
+    private static final int LISTEN_POLL_MILLIS = 250;
+    private static final int CHANGE_LOG_POLL_MILLIS = 10;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    private static final Logger log = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    private final long coalesceWindowNanos;
+    private final int maxBatch;
+    private final ExecutorService executor;
+    private final SubmissionPublisher<List<UserChange>> publisher;
+    private final Thread dispatcher;
+    private final ChangeSource source;
+    private final Object lock = new Object();
+
+    private Map<Integer, UserChange> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    public UserChangeFeed(CrudController controller) throws SQLException {
+        this(controller, DEFAULT_COALESCE_WINDOW, DEFAULT_MAX_BATCH);
+    }
+
+    public UserChangeFeed(CrudController controller, Duration coalesceWindow, int maxBatch) throws SQLException {
+        if (controller == null) {
+            throw new IllegalArgumentException("Controller must not be null");
+        }
+        if (coalesceWindow.isNegative()) {
+            throw new IllegalArgumentException("Coalesce window must not be negative");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Max batch must be positive");
+        }
+
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.maxBatch = maxBatch;
+        val threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> daemon(runnable, "user-change-publish-" + threadNumber.incrementAndGet()));
+        this.publisher = new SubmissionPublisher<>(executor, Flow.defaultBufferSize());
+        try {
+            this.source = switch (controller.dialect()) {
+                case POSTGRESQL -> listen(controller);
+                case H2 -> pollChangeLog(controller);
+                case GENERIC -> throw new UnsupportedOperationException("Change feed requires PostgreSQL or H2");
+            };
+        } catch (SQLException | RuntimeException e) {
+            publisher.close();
+            executor.shutdown();
+            throw e;
+        }
+        this.dispatcher = daemon(this::dispatch, "user-change-dispatch");
+        dispatcher.start();
+    }
+
+    // every subscriber has its own buffer, a full one holds back publishing while new changes keep coalescing
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<UserChange>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // stops receiving changes, publishes the ones already received and completes the subscribers
+    @Override
+    public void close() throws SQLException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            source.close();
+        } finally {
+            awaitDispatcher();
+            publisher.close();
+            executor.shutdown();
+        }
+    }
+
+    private void accept(UserChange change) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            val previous = pending.get(change.id());
+            if (previous == null || previous.version() < change.version()) {
+                pending.put(change.id(), change);
+            }
+            if (previous == null && (pending.size() == 1 || pending.size() >= maxBatch)) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void fail(Throwable failure) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = new LinkedHashMap<>();
+            lock.notifyAll();
+        }
+        publisher.closeExceptionally(failure);
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                final List<UserChange> batch;
+                synchronized (lock) {
+                    while (!closed && pending.isEmpty()) {
+                        lock.wait();
+                    }
+                    // the first change opens the window, changes arriving within it join the same batch
+                    val deadline = System.nanoTime() + coalesceWindowNanos;
+                    long remaining;
+                    while (!closed && pending.size() < maxBatch && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    batch = takeBatch();
+                }
+                if (publisher.isClosed()) {
+                    return;
+                }
+                // blocks while a subscriber's buffer is full
+                publisher.submit(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // the publisher was closed by a failed source while this batch was being submitted
+        }
+    }
+
+    private List<UserChange> takeBatch() {
+        val batch = new ArrayList<UserChange>(Math.min(pending.size(), maxBatch));
+        val iterator = pending.values().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatch) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return List.copyOf(batch);
+    }
+
+    private void awaitDispatcher() {
+        try {
+            dispatcher.join(CLOSE_TIMEOUT_MILLIS);
+            if (dispatcher.isAlive()) {
+                log.warn("User change subscribers did not keep up within {} ms, dropping {} changes", CLOSE_TIMEOUT_MILLIS, pendingCount());
+                dispatcher.interrupt();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ChangeSource listen(CrudController controller) throws SQLException {
+        val connection = controller.connection();
+        try {
+            connection.setAutoCommit(true);
+            try (val statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            val pgConnection = connection.unwrap(PGConnection.class);
+            val listener = daemon(() -> receive(pgConnection), "user-change-listen");
+            listener.start();
+            return () -> {
+                try {
+                    listener.join(CLOSE_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // the connection goes back to the pool, so it must not keep collecting notifications
+                try (connection; val statement = connection.createStatement()) {
+                    statement.execute("UNLISTEN *");
+                }
+            };
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void receive(PGConnection connection) {
+        try {
+            while (!isClosed()) {
+                val notifications = connection.getNotifications(LISTEN_POLL_MILLIS);
+                if (notifications == null) {
+                    continue;
+                }
+                for (val notification : notifications) {
+                    accept(UserChange.fromPayload(notification.getParameter()));
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (!isClosed()) {
+                log.error("Listening for user changes failed, closing the feed", e);
+                fail(e);
+            }
+        }
+    }
+
+    private ChangeSource pollChangeLog(CrudController controller) throws SQLException {
+        val channel = "users_change_" + UUID.randomUUID().toString().replace("-", "");
+        val logTable = "\"" + channel + H2UserChangeTrigger.LOG_TABLE_SUFFIX + "\"";
+        execute(controller, "CREATE TABLE " + logTable
+            + " ( seq BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, id INT NOT NULL, operation CHAR(1) NOT NULL )");
+        try {
+            execute(controller, "CREATE TRIGGER \"" + channel + "\" AFTER INSERT, UPDATE, DELETE ON users FOR EACH ROW CALL '"
+                + H2UserChangeTrigger.class.getName() + "'");
+        } catch (SQLException | RuntimeException e) {
+            execute(controller, "DROP TABLE IF EXISTS " + logTable);
+            throw e;
+        }
+
+        final Thread poller;
+        val connection = controller.connection();
+        try {
+            connection.setAutoCommit(true);
+            poller = daemon(() -> poll(connection, logTable), "user-change-poll");
+            poller.start();
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            dropChangeLog(controller, channel, logTable);
+            throw e;
+        }
+        return () -> {
+            try {
+                poller.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                connection.close();
+            } finally {
+                dropChangeLog(controller, channel, logTable);
+            }
+        };
+    }
+
+    // only committed log rows are visible here; they are deleted once accepted, so a transaction that commits late
+    // still has its rows read by a later poll even though their sequence numbers are lower than ones already read
+    private void poll(Connection connection, String logTable) {
+        try (
+            val select = connection.prepareStatement("SELECT seq, id, operation FROM " + logTable + " ORDER BY seq");
+            val delete = connection.prepareStatement("DELETE FROM " + logTable + " WHERE seq = ?")
+        ) {
+            while (!isClosed()) {
+                var polled = 0;
+                try (val resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        val seq = resultSet.getLong(1);
+                        accept(new UserChange(resultSet.getInt(2), ChangeOperation.fromCode(resultSet.getString(3).charAt(0)), seq));
+                        delete.setLong(1, seq);
+                        delete.addBatch();
+                        polled++;
+                    }
+                }
+                if (polled > 0) {
+                    delete.executeBatch();
+                } else {
+                    Thread.sleep(CHANGE_LOG_POLL_MILLIS);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (!isClosed()) {
+                log.error("Polling the user change log failed, closing the feed", e);
+                fail(e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the trigger goes first, writers would fail on a trigger whose log table is gone
+    private static void dropChangeLog(CrudController controller, String channel, String logTable) throws SQLException {
+        try {
+            execute(controller, "DROP TRIGGER IF EXISTS \"" + channel + "\"");
+        } finally {
+            execute(controller, "DROP TABLE IF EXISTS " + logTable);
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private static void execute(CrudController controller, String sql) throws SQLException {
+        try (
+            val connection = controller.connection();
+            val statement = connection.createStatement()
+        ) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        val thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private interface ChangeSource {
+        void close() throws SQLException;
+    }
+
+}
@@ -0,0 +1,181 @@
+package controller;
+
+import lombok.val;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+// rows go from the driver straight into the channel, no User objects are built on the way
+public class UserExporter {
+    private static final Logger log = LoggerFactory.getLogger(UserExporter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short BINARY_FIELD_COUNT = 2;
+
+    private final CrudController controller;
+
+    public UserExporter(CrudController controller) {
+        if (controller == null) {
+            throw new IllegalArgumentException("Controller must not be null");
+        }
+        this.controller = controller;
+    }
+
+    public long export(Path file, ExportFormat format, boolean gzip) throws SQLException, IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+
+        try (val channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return export(channel, format, gzip);
+        }
+    }
+
+    // the channel is left open for the caller; with gzip the stream is finished so the channel holds a complete archive
+    public long export(WritableByteChannel channel, ExportFormat format, boolean gzip) throws SQLException, IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Format must not be null");
+        }
+
+        val start = System.nanoTime();
+        val channelOutput = new UnclosableOutputStream(Channels.newOutputStream(channel));
+        final long rows;
+        try (val output = new BufferedOutputStream(gzip ? new GZIPOutputStream(channelOutput, BUFFER_SIZE) : channelOutput, BUFFER_SIZE)) {
+            rows = controller.dialect() == Dialect.POSTGRESQL
+                ? copyOut(format, output)
+                : writeResultSet(format, output);
+        }
+        log.info("Exported {} users as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private long copyOut(ExportFormat format, OutputStream output) throws SQLException, IOException {
+        try (val connection = controller.connection()) {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(format.copySql(), output);
+        }
+    }
+
+    // other dialects stream a forward-only cursor and encode the same bytes COPY would produce
+    private long writeResultSet(ExportFormat format, OutputStream output) throws SQLException, IOException {
+        val sql = "SELECT id, username FROM users ORDER BY id";
+        try (val connection = controller.connection()) {
+            connection.setAutoCommit(false);
+            val lazy = controller.dialect() == Dialect.H2;
+            if (lazy) {
+                CrudController.setLazyQueryExecution(connection, true);
+            }
+            try (val preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                preparedStatement.setFetchSize(controller.fetchSize());
+                try (val resultSet = preparedStatement.executeQuery()) {
+                    return format == ExportFormat.CSV
+                        ? writeCsv(resultSet, output)
+                        : writeBinary(resultSet, new DataOutputStream(output));
+                }
+            } finally {
+                if (lazy) {
+                    CrudController.setLazyQueryExecution(connection, false);
+                }
+            }
+        }
+    }
+
+    private static long writeCsv(ResultSet resultSet, OutputStream output) throws SQLException, IOException {
+        long rows = 0;
+        val line = new StringBuilder();
+        while (resultSet.next()) {
+            line.setLength(0);
+            line.append(resultSet.getInt(1)).append(',');
+            appendCsvValue(line, resultSet.getString(2));
+            line.append('\n');
+            output.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            rows++;
+        }
+        return rows;
+    }
+
+    // quotes the same values PostgreSQL's CSV output does, so both dialects produce identical files
+    private static void appendCsvValue(StringBuilder line, String value) {
+        val quoted = value.isEmpty() || value.equals("\\.")
+            || value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quoted) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // PostgreSQL binary COPY layout: signature, flags, header extension, then per row a field count and length-prefixed fields
+    private static long writeBinary(ResultSet resultSet, DataOutputStream output) throws SQLException, IOException {
+        output.write(BINARY_SIGNATURE);
+        output.writeInt(0);
+        output.writeInt(0);
+
+        long rows = 0;
+        while (resultSet.next()) {
+            output.writeShort(BINARY_FIELD_COUNT);
+            output.writeInt(Integer.BYTES);
+            output.writeInt(resultSet.getInt(1));
+            val username = resultSet.getString(2).getBytes(StandardCharsets.UTF_8);
+            output.writeInt(username.length);
+            output.write(username);
+            rows++;
+        }
+        output.writeShort(-1);
+        output.flush();
+        return rows;
+    }
+
+    private static final class UnclosableOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        private UnclosableOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadAsyncCrud<T> implements AsyncCRUD<T>, AutoCloseable {
+    private final CRUD<T> delegate;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public VirtualThreadAsyncCrud(CRUD<T> delegate, int maxConcurrency) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = newExecutor(maxConcurrency);
+    }
+
+    // one in-flight call per pooled connection, so callers queue here instead of inside getConnection
+    public static VirtualThreadAsyncCrud<User> forController(CrudController controller) {
+        return new VirtualThreadAsyncCrud<>(controller, controller.maximumPoolSize());
+    }
+
+    @Override
+    public CompletableFuture<Integer> create(T record) {
+        return submit(() -> delegate.create(record));
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> read(int id) {
+        return submit(() -> delegate.read(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(int id, T record) {
+        return submit(() -> {
+            delegate.update(id, record);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(int id) {
+        return submit(() -> {
+            delegate.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> upsert(int id, T record) {
+        return submit(() -> {
+            delegate.upsert(id, record);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateIf(int id, T expected, T replacement) {
+        return submit(() -> delegate.updateIf(id, expected, replacement));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, T>> readMany(Collection<Integer> ids) {
+        return submit(() -> delegate.readMany(ids));
+    }
+
+    @Override
+    public CompletableFuture<int[]> createAll(Collection<T> records) {
+        return submit(() -> delegate.createAll(records));
+    }
+
+    @Override
+    public CompletableFuture<Integer> updateAll(Map<Integer, T> records) {
+        return submit(() -> delegate.updateAll(records));
+    }
+
+    @Override
+    public CompletableFuture<Integer> upsertAll(Map<Integer, T> records) {
+        return submit(() -> delegate.upsertAll(records));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteAll(int[] ids) {
+        return submit(() -> delegate.deleteAll(ids));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity<T>>> page(int afterId, int limit) {
+        return submit(() -> delegate.page(afterId, limit));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // stops accepting calls, calls already submitted still complete
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <R> CompletableFuture<R> submit(SqlCall<R> call) {
+        val future = new CompletableFuture<R>();
+        try {
+            executor.execute(() -> run(call, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <R> void run(SqlCall<R> call, CompletableFuture<R> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            future.complete(call.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // virtual threads need Java 21; older runtimes get one platform thread per permit instead
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            val factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            val threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                val thread = new Thread(runnable, "async-crud-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<R> {
+        R call() throws SQLException;
+    }
+}
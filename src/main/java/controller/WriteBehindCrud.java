@@ -0,0 +1,464 @@
+package controller;
+
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// updates and deletes are buffered per id (last write wins) and written in one transaction per flush;
+// when that transaction is rejected for good, the batch is applied id by id so one bad write cannot block the rest
+public class WriteBehindCrud implements UserCRUD, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCrud.class);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final CrudController delegate;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Object lock = new Object();
+
+    // Optional.empty() marks a pending delete
+    private Map<Integer, Optional<User>> pending = new LinkedHashMap<>();
+    private Map<Integer, Optional<User>> flushing = Map.of();
+    // writes rejected by flushes nobody waited for, reported by the next flush or close instead of to unrelated writers
+    private RejectedWritesException backgroundFailure;
+    private boolean closed;
+
+    public WriteBehindCrud(CrudController delegate, int maxPending, Duration flushInterval) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate must not be null");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Max pending writes must be positive");
+        }
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+
+        this.delegate = delegate;
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            val thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        val intervalNanos = flushInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushInBackground, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int create(User record) throws SQLException {
+        return delegate.create(record);
+    }
+
+    @Override
+    public Optional<User> read(int id) throws SQLException {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be greater than 0");
+        }
+
+        val buffered = buffered(id);
+        return buffered != null ? buffered : delegate.read(id);
+    }
+
+    @Override
+    public void update(int id, User record) throws SQLException {
+        validateUpdate(id, record);
+        enqueue(Map.of(id, Optional.of(record)));
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        validateId(id);
+        enqueue(Map.of(id, Optional.empty()));
+    }
+
+    // inserting and conditional writes depend on the stored row, so they flush the buffer and go straight through
+    @Override
+    public void upsert(int id, User record) throws SQLException {
+        flush();
+        delegate.upsert(id, record);
+    }
+
+    @Override
+    public boolean updateIf(int id, User expected, User replacement) throws SQLException {
+        flush();
+        return delegate.updateIf(id, expected, replacement);
+    }
+
+    @Override
+    public Map<Integer, User> readMany(Collection<Integer> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+
+        val distinctIds = new LinkedHashSet<Integer>(ids);
+        for (val id : distinctIds) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("id must be greater than 0");
+            }
+        }
+        val overlay = new HashMap<Integer, Optional<User>>();
+        synchronized (lock) {
+            for (val id : distinctIds) {
+                val buffered = bufferedLocked(id);
+                if (buffered != null) {
+                    overlay.put(id, buffered);
+                }
+            }
+        }
+
+        val missing = new ArrayList<Integer>(distinctIds.size() - overlay.size());
+        for (val id : distinctIds) {
+            if (!overlay.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        val found = missing.isEmpty() ? Map.<Integer, User>of() : delegate.readMany(missing);
+
+        val users = new LinkedHashMap<Integer, User>();
+        for (val id : distinctIds) {
+            val buffered = overlay.get(id);
+            val user = buffered != null ? buffered.orElse(null) : found.get(id);
+            if (user != null) {
+                users.put(id, user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public int[] createAll(Collection<User> records) throws SQLException {
+        return delegate.createAll(records);
+    }
+
+    // buffered writes are not counted against rows, so both bulk writes report how many writes were accepted
+    @Override
+    public int updateAll(Map<Integer, User> records) throws SQLException {
+        if (records == null) {
+            throw new IllegalArgumentException("Users must not be null");
+        }
+        val writes = new LinkedHashMap<Integer, Optional<User>>();
+        records.forEach((id, record) -> {
+            validateUpdate(id, record);
+            writes.put(id, Optional.of(record));
+        });
+        enqueue(writes);
+        return writes.size();
+    }
+
+    @Override
+    public int upsertAll(Map<Integer, User> records) throws SQLException {
+        flush();
+        return delegate.upsertAll(records);
+    }
+
+    @Override
+    public int deleteAll(int[] ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        val writes = new LinkedHashMap<Integer, Optional<User>>();
+        for (val id : ids) {
+            validateId(id);
+            writes.put(id, Optional.empty());
+        }
+        enqueue(writes);
+        return writes.size();
+    }
+
+    // scans and username lookups cannot merge the buffer cheaply, so they flush it first
+    @Override
+    public Stream<Entity<User>> streamAll() throws SQLException {
+        flush();
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Entity<User>> page(int afterId, int limit) throws SQLException {
+        flush();
+        return delegate.page(afterId, limit);
+    }
+
+    @Override
+    public Optional<Entity<User>> findByUsername(String username) throws SQLException {
+        flush();
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public List<Entity<User>> findByUsernamePrefix(String prefix, int limit) throws SQLException {
+        flush();
+        return delegate.findByUsernamePrefix(prefix, limit);
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // transiently failed writes stay buffered unless overwritten meanwhile and are retried by the next flush,
+    // writes the database rejects for good are dropped and reported by id in a RejectedWritesException;
+    // failures of earlier flushes nobody waited for are thrown here too, after this flush ran
+    public void flush() throws SQLException {
+        try {
+            flushPending();
+        } catch (SQLException e) {
+            val background = takeBackgroundFailure();
+            if (background != null) {
+                e.addSuppressed(background);
+            }
+            throw e;
+        }
+        val background = takeBackgroundFailure();
+        if (background != null) {
+            throw background;
+        }
+    }
+
+    // the writes rejected by flushes nobody waited for since the last call, later ones attached as suppressed, or null
+    public RejectedWritesException takeBackgroundFailure() {
+        synchronized (lock) {
+            val failure = backgroundFailure;
+            backgroundFailure = null;
+            return failure;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        scheduler.shutdown();
+        try {
+            // a timer flush still running may record a failure the final flush has to report
+            scheduler.awaitTermination(CLOSE_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushPending() throws SQLException {
+        flushLock.lock();
+        try {
+            final Map<Integer, Optional<User>> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new LinkedHashMap<>();
+            }
+
+            try {
+                write(batch);
+            } catch (SQLException e) {
+                if (ResilientCrud.isTransient(e)) {
+                    finishFlush(batch);
+                    throw e;
+                }
+                if (batch.size() == 1) {
+                    finishFlush(Map.of());
+                    throw new RejectedWritesException(Map.of(batch.keySet().iterator().next(), e));
+                }
+                writeEach(batch);
+                return;
+            } catch (RuntimeException e) {
+                finishFlush(batch);
+                throw e;
+            }
+            finishFlush(Map.of());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // isolates the writes the database rejects, applies the others and keeps only transient failures buffered
+    private void writeEach(Map<Integer, Optional<User>> batch) throws SQLException {
+        val retry = new LinkedHashMap<Integer, Optional<User>>();
+        val rejected = new LinkedHashMap<Integer, SQLException>();
+        SQLException transientFailure = null;
+        RuntimeException unexpectedFailure = null;
+        for (val write : batch.entrySet()) {
+            try {
+                write(Map.of(write.getKey(), write.getValue()));
+            } catch (SQLException e) {
+                if (ResilientCrud.isTransient(e)) {
+                    retry.put(write.getKey(), write.getValue());
+                    if (transientFailure == null) {
+                        transientFailure = e;
+                    }
+                } else {
+                    rejected.put(write.getKey(), e);
+                }
+            } catch (RuntimeException e) {
+                retry.put(write.getKey(), write.getValue());
+                if (unexpectedFailure == null) {
+                    unexpectedFailure = e;
+                }
+            }
+        }
+        finishFlush(retry);
+
+        if (!rejected.isEmpty()) {
+            val failure = new RejectedWritesException(rejected);
+            if (transientFailure != null) {
+                failure.addSuppressed(transientFailure);
+            }
+            throw failure;
+        }
+        if (transientFailure != null) {
+            throw transientFailure;
+        }
+        if (unexpectedFailure != null) {
+            throw unexpectedFailure;
+        }
+    }
+
+    private void finishFlush(Map<Integer, Optional<User>> retry) {
+        synchronized (lock) {
+            if (!retry.isEmpty()) {
+                // writes buffered since the flush started are newer and win
+                val merged = new LinkedHashMap<>(retry);
+                merged.putAll(pending);
+                pending = merged;
+            }
+            flushing = Map.of();
+        }
+    }
+
+    // a full buffer is written out before more writes are accepted, so a caller whose write cannot be buffered
+    // gets the flush failure and its write is dropped; a write that was accepted never fails its caller, it stays
+    // buffered across transient failures and is retried by the next flush
+    private void enqueue(Map<Integer, Optional<User>> writes) throws SQLException {
+        if (!buffer(writes, false)) {
+            flushAccepted();
+            buffer(writes, true);
+        }
+        final boolean full;
+        synchronized (lock) {
+            full = pending.size() >= maxPending;
+        }
+        if (full) {
+            try {
+                flushAccepted();
+            } catch (SQLException e) {
+                log.warn("Write-behind flush failed, {} writes stay buffered", pendingCount(), e);
+            }
+        }
+    }
+
+    // buffers the writes unless they add ids to a full buffer and force is false, the buffer thereby holds at most
+    // maxPending writes plus one bulk write and the writes a failed flush put back
+    private boolean buffer(Map<Integer, Optional<User>> writes, boolean force) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer is closed");
+            }
+            if (!force && pending.size() >= maxPending && !pending.keySet().containsAll(writes.keySet())) {
+                return false;
+            }
+            for (val write : writes.entrySet()) {
+                // re-insert so the map keeps the order of the latest write per id
+                pending.remove(write.getKey());
+                pending.put(write.getKey(), write.getValue());
+            }
+            return true;
+        }
+    }
+
+    private void flushAccepted() throws SQLException {
+        try {
+            flushPending();
+        } catch (RejectedWritesException e) {
+            // older writes of other callers, reported by the next flush like background failures
+            log.warn("Write-behind flush dropped rejected writes for ids {}", e.failedIds(), e);
+            recordBackgroundFailure(e);
+        }
+    }
+
+    private void write(Map<Integer, Optional<User>> batch) throws SQLException {
+        val updates = new LinkedHashMap<Integer, User>();
+        val deletes = new ArrayList<Integer>();
+        batch.forEach((id, write) -> {
+            if (write.isPresent()) {
+                updates.put(id, write.get());
+            } else {
+                deletes.add(id);
+            }
+        });
+        delegate.applyAll(updates, deletes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private void flushInBackground() {
+        try {
+            flushAccepted();
+        } catch (SQLException e) {
+            // transient, the writes stay buffered for the next flush
+            log.warn("Write-behind flush failed, {} writes stay buffered", pendingCount(), e);
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    private void recordBackgroundFailure(RejectedWritesException e) {
+        synchronized (lock) {
+            if (backgroundFailure == null) {
+                backgroundFailure = e;
+            } else if (backgroundFailure != e) {
+                backgroundFailure.addSuppressed(e);
+            }
+        }
+    }
+
+    private Optional<User> buffered(int id) {
+        synchronized (lock) {
+            return bufferedLocked(id);
+        }
+    }
+
+    private Optional<User> bufferedLocked(int id) {
+        val write = pending.get(id);
+        return write != null ? write : flushing.get(id);
+    }
+
+    private static void validateUpdate(int id, User record) {
+        if (record == null) {
+            throw new IllegalArgumentException("User must not be null");
+        }
+        if (record.username().isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+        validateId(id);
+    }
+
+    private static void validateId(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("User id must be positive");
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package model;
+
+public record Entity<T>(
+    int id,
+    T record
+) {}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.dbunit.database.IDatabaseConnection;
+import org.junit.jupiter.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkLoaderTest {
+    private static final Logger log = LoggerFactory.getLogger(BulkLoaderTest.class);
+
+    private static final int LOAD_SIZE = 100_000;
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class PostgresCopy {
+
+        private DatabaseTestConfigurator databaseTestConfigurator;
+        private IDatabaseConnection connection;
+        private CrudController controller;
+        private BulkLoader loader;
+
+        @BeforeAll
+        void setup() {
+            databaseTestConfigurator = new DatabaseTestConfigurator();
+            connection = databaseTestConfigurator.getDatabaseConnection();
+            controller = (CrudController) databaseTestConfigurator.getUserCrud();
+            loader = new BulkLoader(controller);
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            databaseTestConfigurator.setUpDataSet();
+        }
+
+        @AfterEach
+        void tearDownDataSet() {
+            databaseTestConfigurator.tearDown();
+        }
+
+        @AfterAll
+        void tearDown() throws Exception {
+            connection.close();
+        }
+
+        @SneakyThrows
+        @DisplayName("BulkLoader#load - should COPY every streamed User into the table")
+        @Test
+        void load_shouldCopyAllUsers_whenStreamed() {
+            val before = connection.getRowCount("users");
+
+            val result = loader.load(IntStream.range(0, LOAD_SIZE).mapToObj(i -> new User("bulk" + i)));
+            log.info("COPY loaded {} users at {} rows/s", result.rows(), Math.round(result.rowsPerSecond()));
+
+            assertEquals(LOAD_SIZE, result.rows());
+            assertEquals(before + LOAD_SIZE, connection.getRowCount("users"));
+        }
+
+        @SneakyThrows
+        @DisplayName("BulkLoader#load - should keep COPY control characters in usernames intact")
+        @Test
+        void load_shouldEscapeControlCharacters() {
+            val usernames = List.of("tab\there", "back\\slash", "new\nline", "\\N");
+
+            loader.load(usernames.stream().map(User::new));
+
+            try (val stream = controller.streamAll()) {
+                assertThat(stream.map(entity -> entity.record().username()).toList()).endsWith(usernames.toArray(String[]::new));
+            }
+        }
+
+        @SneakyThrows
+        @DisplayName("BulkLoader#load - should load nothing when a User is invalid")
+        @Test
+        void load_shouldLoadNothing_whenUserBlank() {
+            val before = connection.getRowCount("users");
+            val users = List.of(new User("valid"), new User(" "));
+
+            assertThrows(IllegalArgumentException.class, () -> loader.load(users.iterator()));
+            assertEquals(before, connection.getRowCount("users"));
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class H2Fallback {
+
+        private H2TestDatabase database;
+        private CrudController controller;
+        private BulkLoader loader;
+
+        @BeforeAll
+        void setup() {
+            database = new H2TestDatabase("bulk");
+            controller = database.createController();
+            loader = new BulkLoader(controller);
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            database.recreateSchema();
+            database.insertMockUsers();
+        }
+
+        @AfterAll
+        void tearDown() {
+            controller.close();
+        }
+
+        @SneakyThrows
+        @DisplayName("BulkLoader#load - should fall back to batched inserts on H2")
+        @Test
+        void load_shouldInsertAllUsers_whenDialectH2() {
+            val result = loader.load(IntStream.range(0, LOAD_SIZE).mapToObj(i -> new User("bulk" + i)));
+            log.info("Batched inserts loaded {} users at {} rows/s", result.rows(), Math.round(result.rowsPerSecond()));
+
+            assertEquals(LOAD_SIZE, result.rows());
+            assertEquals(database.mockUserCount() + LOAD_SIZE, database.countUsers());
+            assertThat(result.rowsPerSecond()).isPositive();
+        }
+
+        @SneakyThrows
+        @DisplayName("BulkLoader#load - should roll back the whole load when a User is invalid")
+        @Test
+        void load_shouldLoadNothing_whenUserBlank() {
+            val users = List.of(new User("valid"), new User(" "));
+
+            assertThrows(IllegalArgumentException.class, () -> loader.load(users.iterator()));
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+
+        @DisplayName("BulkLoader#load - should throw IllegalArgumentException when users are null")
+        @Test
+        void load_shouldThrow_whenUsersNull() {
+            assertThrows(IllegalArgumentException.class, () -> loader.load((Iterator<User>) null));
+        }
+    }
+}
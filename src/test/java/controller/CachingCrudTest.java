@@ -0,0 +1,292 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCrudTest {
+
+    @Mock
+    private UserCRUD delegate;
+
+    private CachingCrud cachingCrud;
+
+    @BeforeEach
+    void setup() {
+        cachingCrud = new CachingCrud(delegate, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @Nested
+    class Read {
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#read - should query delegate once for repeated reads of the same id")
+        @Test
+        void read_shouldHitCache_whenIdReadBefore() {
+            when(delegate.read(1)).thenReturn(Optional.of(new User("Krabelard")));
+
+            for (int i = 0; i < 5; i++) {
+                assertThat(cachingCrud.read(1)).contains(new User("Krabelard"));
+            }
+
+            verify(delegate, times(1)).read(1);
+            assertEquals(4, cachingCrud.hitCount());
+            assertEquals(1, cachingCrud.missCount());
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#read - should cache Optional.empty() for non-existent id")
+        @Test
+        void read_shouldCacheNegativeLookup_whenIdNotInDatabase() {
+            when(delegate.read(10)).thenReturn(Optional.empty());
+
+            assertTrue(cachingCrud.read(10).isEmpty());
+            assertTrue(cachingCrud.read(10).isEmpty());
+
+            verify(delegate, times(1)).read(10);
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#read - should drop cached Optional.empty() once a User is created")
+        @Test
+        void read_shouldReload_whenUserCreatedAfterNegativeLookup() {
+            when(delegate.read(10)).thenReturn(Optional.empty(), Optional.of(new User("Newcomer")));
+            when(delegate.create(new User("Newcomer"))).thenReturn(10);
+
+            assertTrue(cachingCrud.read(10).isEmpty());
+            cachingCrud.create(new User("Newcomer"));
+
+            assertThat(cachingCrud.read(10)).contains(new User("Newcomer"));
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#read - should run a single delegate read for concurrent misses on the same id")
+        @Test
+        void read_shouldMergeConcurrentMisses() {
+            val loadStarted = new CountDownLatch(1);
+            val releaseLoad = new CountDownLatch(1);
+            when(delegate.read(1)).thenAnswer(invocation -> {
+                loadStarted.countDown();
+                releaseLoad.await();
+                return Optional.of(new User("Krabelard"));
+            });
+
+            val executor = Executors.newFixedThreadPool(8);
+            try {
+                val results = new ArrayList<Future<Optional<User>>>();
+                for (int i = 0; i < 8; i++) {
+                    results.add(executor.submit(() -> cachingCrud.read(1)));
+                }
+                assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+                Thread.sleep(100);
+                releaseLoad.countDown();
+
+                for (val result : results) {
+                    assertThat(result.get(5, TimeUnit.SECONDS)).contains(new User("Krabelard"));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            verify(delegate, times(1)).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#read - should propagate SQLException and not cache the failure")
+        @Test
+        void read_shouldRethrowSqlException_whenDelegateFails() {
+            val failure = new SQLException("connection refused", "08001");
+            when(delegate.read(anyInt())).thenThrow(failure).thenReturn(Optional.of(new User("Krabelard")));
+
+            val thrown = assertThrows(SQLException.class, () -> cachingCrud.read(1));
+            assertSame(failure, thrown);
+            assertThat(cachingCrud.read(1)).contains(new User("Krabelard"));
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#readMany - should fetch only uncached ids in a single delegate call")
+        @Test
+        void readMany_shouldLoadOnlyMisses() {
+            when(delegate.read(1)).thenReturn(Optional.of(new User("Krabelard")));
+            when(delegate.readMany(anyCollection())).thenReturn(Map.of(2, new User("Gordon")));
+
+            cachingCrud.read(1);
+            val users = cachingCrud.readMany(List.of(2, 1, 10));
+
+            assertThat(users.keySet()).containsExactly(2, 1);
+            verify(delegate).readMany(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(2, 10))));
+            assertTrue(cachingCrud.read(10).isEmpty());
+            verify(delegate, never()).read(10);
+        }
+
+        @DisplayName("CachingCrud#read - should throw IllegalArgumentException for id <= 0")
+        @Test
+        void read_shouldThrow_whenIdInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> cachingCrud.read(0));
+        }
+
+    }
+
+    @Nested
+    class Invalidation {
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#update - should invalidate cached entry")
+        @Test
+        void update_shouldInvalidateEntry() {
+            when(delegate.read(1)).thenReturn(Optional.of(new User("Krabelard")), Optional.of(new User("Updated")));
+
+            cachingCrud.read(1);
+            cachingCrud.update(1, new User("Updated"));
+
+            assertThat(cachingCrud.read(1)).contains(new User("Updated"));
+            verify(delegate, times(2)).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#delete - should invalidate cached entry")
+        @Test
+        void delete_shouldInvalidateEntry() {
+            when(delegate.read(1)).thenReturn(Optional.of(new User("Krabelard")), Optional.empty());
+
+            cachingCrud.read(1);
+            cachingCrud.delete(1);
+
+            assertTrue(cachingCrud.read(1).isEmpty());
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#updateAll and #deleteAll - should invalidate every affected entry")
+        @Test
+        void batchWrites_shouldInvalidateEntries() {
+            when(delegate.read(anyInt())).thenReturn(Optional.of(new User("Krabelard")));
+            for (val id : List.of(1, 2, 3)) {
+                cachingCrud.read(id);
+            }
+
+            cachingCrud.updateAll(Map.of(1, new User("Updated")));
+            cachingCrud.deleteAll(new int[]{2});
+            for (val id : List.of(1, 2, 3)) {
+                cachingCrud.read(id);
+            }
+
+            verify(delegate, times(2)).read(1);
+            verify(delegate, times(2)).read(2);
+            verify(delegate, times(1)).read(3);
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#readMany - should not cache a row loaded before a concurrent update invalidated it")
+        @Test
+        void readMany_shouldNotCacheStaleRow_whenInvalidatedDuringLoad() {
+            val loading = new CountDownLatch(1);
+            val release = new CountDownLatch(1);
+            when(delegate.readMany(anyCollection())).thenAnswer(invocation -> {
+                loading.countDown();
+                release.await();
+                return Map.of(1, new User("Krabelard"), 2, new User("Gordon"));
+            });
+            when(delegate.read(1)).thenReturn(Optional.of(new User("Updated")));
+            val executor = Executors.newSingleThreadExecutor();
+            try {
+                val load = executor.submit(() -> cachingCrud.readMany(List.of(1, 2)));
+                assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+                cachingCrud.update(1, new User("Updated"));
+                release.countDown();
+
+                assertThat(load.get(5, TimeUnit.SECONDS)).containsEntry(1, new User("Krabelard"));
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+
+            assertThat(cachingCrud.read(1)).contains(new User("Updated"));
+            assertThat(cachingCrud.read(2)).contains(new User("Gordon"));
+            verify(delegate, never()).read(2);
+        }
+
+    }
+
+    @Nested
+    class FindByUsername {
+
+        private CrudController usernameDelegate;
+        private CachingCrud usernameCachingCrud;
+
+        @BeforeEach
+        void setup() {
+            usernameDelegate = mock(CrudController.class);
+            usernameCachingCrud = new CachingCrud(usernameDelegate, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#findByUsername - should query delegate once for repeated lookups of the same username")
+        @Test
+        void findByUsername_shouldHitCache_whenUsernameLookedUpBefore() {
+            when(usernameDelegate.findByUsername("Krabelard")).thenReturn(Optional.of(new Entity<>(1, new User("Krabelard"))));
+            when(usernameDelegate.read(1)).thenReturn(Optional.of(new User("Krabelard")));
+
+            for (int i = 0; i < 5; i++) {
+                assertThat(usernameCachingCrud.findByUsername("Krabelard")).contains(new Entity<>(1, new User("Krabelard")));
+            }
+
+            verify(usernameDelegate, times(1)).findByUsername("Krabelard");
+            verify(usernameDelegate, times(1)).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("CachingCrud#findByUsername - should fall back to delegate once the cached id was renamed")
+        @Test
+        void findByUsername_shouldQueryDelegate_whenCachedIdRenamed() {
+            when(usernameDelegate.findByUsername("Krabelard"))
+                .thenReturn(Optional.of(new Entity<>(1, new User("Krabelard"))))
+                .thenReturn(Optional.empty());
+
+            usernameCachingCrud.findByUsername("Krabelard");
+            usernameCachingCrud.update(1, new User("Renamed"));
+            when(usernameDelegate.read(1)).thenReturn(Optional.of(new User("Renamed")));
+
+            assertTrue(usernameCachingCrud.findByUsername("Krabelard").isEmpty());
+            verify(usernameDelegate, times(2)).findByUsername("Krabelard");
+        }
+
+        @DisplayName("CachingCrud#findByUsername - should throw UnsupportedOperationException when delegate has no username lookups")
+        @Test
+        void findByUsername_shouldThrow_whenDelegateWithoutLookup() {
+            assertThrows(UnsupportedOperationException.class, () -> cachingCrud.findByUsername("Krabelard"));
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingCrudTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(50);
+
+    @Mock
+    private UserCRUD delegate;
+
+    private CoalescingCrud coalescingCrud;
+
+    @BeforeEach
+    void setup() {
+        coalescingCrud = new CoalescingCrud(delegate, WINDOW, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescingCrud.close();
+    }
+
+    @Nested
+    class Read {
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#read - should answer concurrent reads with a single readMany")
+        @Test
+        void read_shouldCoalesce_whenReadsConcurrent() {
+            when(delegate.readMany(anyCollection())).thenAnswer(invocation -> {
+                val users = new HashMap<Integer, User>();
+                for (val id : invocation.<Collection<Integer>>getArgument(0)) {
+                    if (id % 2 == 1) {
+                        users.put(id, new User("user" + id));
+                    }
+                }
+                return users;
+            });
+
+            val callers = 10;
+            val start = new CountDownLatch(1);
+            val executor = Executors.newFixedThreadPool(callers);
+            try {
+                val futures = new ArrayList<Future<Optional<User>>>();
+                for (int id = 1; id <= callers; id++) {
+                    val requestedId = id;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return coalescingCrud.read(requestedId);
+                    }));
+                }
+                start.countDown();
+
+                for (int id = 1; id <= callers; id++) {
+                    val expected = id % 2 == 1 ? Optional.of(new User("user" + id)) : Optional.<User>empty();
+                    assertEquals(expected, futures.get(id - 1).get(5, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            verify(delegate, times(1)).readMany(anyCollection());
+            verify(delegate, never()).read(anyInt());
+        }
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#readAsync - should run a batch as soon as it is full without waiting for the window")
+        @Test
+        void readAsync_shouldRunBatch_whenMaxBatchReached() {
+            try (val batching = new CoalescingCrud(delegate, Duration.ofMinutes(1), 4)) {
+                when(delegate.readMany(anyCollection())).thenReturn(new HashMap<>());
+
+                val futures = IntStream.rangeClosed(1, 4).mapToObj(batching::readAsync).toList();
+
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+                verify(delegate, times(1)).readMany(List.of(1, 2, 3, 4));
+            }
+        }
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#readAsync - should query an id requested twice within a window once")
+        @Test
+        void readAsync_shouldQueryOnce_whenIdRequestedTwice() {
+            val captor = ArgumentCaptor.forClass(Collection.class);
+            when(delegate.readMany(captor.capture())).thenReturn(new HashMap<>());
+
+            val first = coalescingCrud.readAsync(1);
+            val second = coalescingCrud.readAsync(1);
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEmpty();
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEmpty();
+            assertThat(captor.getValue()).containsExactly(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#read - should rethrow the SQLException of the batch")
+        @Test
+        void read_shouldThrow_whenBatchFails() {
+            val failure = new SQLException("connection failure", "08006");
+            when(delegate.readMany(anyCollection())).thenThrow(failure);
+
+            assertSame(failure, assertThrows(SQLException.class, () -> coalescingCrud.read(1)));
+        }
+
+        @DisplayName("CoalescingCrud#read - should throw IllegalArgumentException for non-positive id")
+        @Test
+        void read_shouldThrow_whenIdInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> coalescingCrud.read(0));
+        }
+    }
+
+    @Nested
+    class Delete {
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#deleteAsync - should delete concurrent requests with a single deleteAll")
+        @Test
+        void deleteAsync_shouldCoalesce_whenDeletesWithinWindow() {
+            val captor = ArgumentCaptor.forClass(int[].class);
+            when(delegate.deleteAll(captor.capture())).thenReturn(5);
+
+            val futures = IntStream.rangeClosed(1, 5).mapToObj(coalescingCrud::deleteAsync).toList();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            assertThat(captor.getValue()).containsExactly(1, 2, 3, 4, 5);
+        }
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud#deleteAsync - should not let the first caller of an id cancel the delete the others wait for")
+        @Test
+        void deleteAsync_shouldCompleteOtherCallers_whenFirstCallerCancels() {
+            val captor = ArgumentCaptor.forClass(int[].class);
+            when(delegate.deleteAll(captor.capture())).thenReturn(1);
+
+            val first = coalescingCrud.deleteAsync(1);
+            val second = coalescingCrud.deleteAsync(1);
+            first.cancel(false);
+
+            second.get(5, TimeUnit.SECONDS);
+            assertThat(first).isCancelled();
+            assertThat(captor.getValue()).containsExactly(1);
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("CoalescingCrud - should reject reads once closed")
+    @Test
+    void read_shouldThrow_whenClosed() {
+        coalescingCrud.close();
+
+        assertThrows(IllegalStateException.class, () -> coalescingCrud.read(1));
+    }
+
+    @SneakyThrows
+    @DisplayName("CoalescingCrud#findByUsername - should forward username lookups to the delegate")
+    @Test
+    void findByUsername_shouldForwardToDelegate() {
+        when(delegate.findByUsername("Krabelard")).thenReturn(Optional.of(new Entity<>(1, new User("Krabelard"))));
+        when(delegate.findByUsernamePrefix("Kr", 10)).thenReturn(List.of(new Entity<>(1, new User("Krabelard"))));
+
+        assertThat(coalescingCrud.findByUsername("Krabelard")).contains(new Entity<>(1, new User("Krabelard")));
+        assertThat(coalescingCrud.findByUsernamePrefix("Kr", 10)).containsExactly(new Entity<>(1, new User("Krabelard")));
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class H2 {
+
+        private H2TestDatabase database;
+        private CrudController controller;
+
+        @BeforeAll
+        void setup() {
+            database = new H2TestDatabase("coalescing");
+            controller = database.createController();
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            database.recreateSchema();
+            database.insertMockUsers();
+        }
+
+        @AfterAll
+        void tearDown() {
+            controller.close();
+        }
+
+        @SneakyThrows
+        @DisplayName("CoalescingCrud - should return what CrudController#read returns under concurrent reads and deletes")
+        @Test
+        void readAndDelete_shouldMatchController_whenConcurrent() {
+            val callers = 32;
+            val expected = new HashMap<Integer, Optional<User>>();
+            for (int id = 1; id <= database.mockUserCount() + 1; id++) {
+                expected.put(id, controller.read(id));
+            }
+
+            try (val crud = CoalescingCrud.forController(controller)) {
+                val executor = Executors.newFixedThreadPool(callers);
+                try {
+                    val futures = new ArrayList<Future<?>>();
+                    for (int i = 0; i < callers * 10; i++) {
+                        val id = i % expected.size() + 1;
+                        futures.add(executor.submit(() -> {
+                            assertEquals(expected.get(id), crud.read(id));
+                            return null;
+                        }));
+                    }
+                    for (val future : futures) {
+                        future.get(5, TimeUnit.SECONDS);
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+
+                crud.delete(1);
+                assertThat(crud.read(1)).isEmpty();
+            }
+            assertEquals(database.mockUserCount() - 1, database.countUsers());
+        }
+    }
+
+}
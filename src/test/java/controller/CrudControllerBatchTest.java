@@ -0,0 +1,222 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CrudControllerBatchTest {
+    private static final int BATCH_SIZE = 100;
+    private static final int IMPORT_SIZE = 5_000;
+
+    private H2TestDatabase database;
+    private CrudController controller;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("batch");
+        controller = database.createController(BATCH_SIZE);
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @Nested
+    class CreateAll {
+
+        @SneakyThrows
+        @DisplayName("CrudController#createAll - should insert every User and report inserted row count")
+        @ParameterizedTest(name = "{index} -> size={0}")
+        @ValueSource(ints = {1, BATCH_SIZE - 1, BATCH_SIZE, BATCH_SIZE + 1, IMPORT_SIZE})
+        void createAll_shouldInsertAllUsers(int size) {
+            val users = generateUsers(size);
+
+            val ids = controller.createAll(users);
+
+            assertEquals(size, ids.length);
+            assertEquals(database.mockUserCount() + size, database.countUsers());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#createAll - should return generated ids in insertion order")
+        @Test
+        void createAll_shouldReturnGeneratedIds() {
+            val users = generateUsers(BATCH_SIZE * 2 + 1);
+
+            val ids = controller.createAll(users);
+
+            assertThat(ids).isSorted().doesNotHaveDuplicates().hasSize(users.size());
+            assertThat(ids[0]).isGreaterThan(database.mockUserCount());
+            for (int i = 0; i < ids.length; i += BATCH_SIZE / 2) {
+                assertThat(controller.read(ids[i])).contains(users.get(i));
+            }
+        }
+
+        @DisplayName("CrudController#createAll - should roll back the whole batch when one row is rejected by the database")
+        @Test
+        void createAll_shouldRollBack_whenOneUserInvalidBySqlStandard() {
+            val users = generateUsers(IMPORT_SIZE);
+            users.set(IMPORT_SIZE / 2, new User("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+
+            assertThrows(SQLException.class, () -> controller.createAll(users));
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+
+        @DisplayName("CrudController#createAll - should throw IllegalArgumentException before touching the database for blank username")
+        @Test
+        void createAll_shouldThrow_whenUserInvalidByAppLogicStandard() {
+            val users = generateUsers(10);
+            users.add(new User(" "));
+
+            Exception e = assertThrows(IllegalArgumentException.class, () -> controller.createAll(users));
+            assertEquals("Username must not be blank.", e.getMessage());
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#createAll - should store the same Users under the same ids as single creates")
+        @Test
+        void createAll_shouldMatchSingleCreates() {
+            val users = generateUsers(IMPORT_SIZE);
+            database.recreateSchema();
+            val singleIds = new int[users.size()];
+            for (int i = 0; i < users.size(); i++) {
+                singleIds[i] = controller.create(users.get(i));
+            }
+
+            database.recreateSchema();
+            val ids = controller.createAll(users);
+
+            assertThat(ids).containsExactly(singleIds);
+            assertEquals(IMPORT_SIZE, database.countUsers());
+            assertThat(controller.readMany(List.of(ids[0], ids[IMPORT_SIZE / 2], ids[IMPORT_SIZE - 1])).values())
+                .containsExactly(users.get(0), users.get(IMPORT_SIZE / 2), users.get(IMPORT_SIZE - 1));
+        }
+
+    }
+
+    @Nested
+    class ReadMany {
+
+        @SneakyThrows
+        @DisplayName("CrudController#readMany - should return existing Users keyed by id in input order without duplicates")
+        @Test
+        void readMany_shouldReturnExistingUsersInInputOrder() {
+            val users = controller.readMany(List.of(9, 3, 10, 3, 1, Integer.MAX_VALUE, 9));
+
+            assertThat(users.keySet()).containsExactly(9, 3, 1);
+            assertEquals(new User("Dziok"), users.get(9));
+            assertEquals(new User("Sysy"), users.get(3));
+            assertEquals(new User("Krabelard"), users.get(1));
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#readMany - should split large id lists into several IN queries")
+        @Test
+        void readMany_shouldReadAllUsers_whenIdsExceedInListChunk() {
+            database.insertGeneratedUsers(CrudController.IN_LIST_CHUNK_SIZE * 3);
+            val ids = IntStream.rangeClosed(1, database.countUsers()).boxed().toList();
+
+            val users = controller.readMany(ids);
+
+            assertThat(users.keySet()).containsExactlyElementsOf(ids);
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#readMany - should return empty map for empty id list")
+        @Test
+        void readMany_shouldReturnEmptyMap_whenIdsEmpty() {
+            assertTrue(controller.readMany(List.of()).isEmpty());
+        }
+
+        @DisplayName("CrudController#readMany - should throw IllegalArgumentException for id <= 0")
+        @Test
+        void readMany_shouldThrow_whenIdInvalid() {
+            Exception e = assertThrows(IllegalArgumentException.class, () -> controller.readMany(List.of(1, 0)));
+            assertEquals("id must be greater than 0", e.getMessage());
+        }
+
+    }
+
+    @Nested
+    class UpdateAll {
+
+        @SneakyThrows
+        @DisplayName("CrudController#updateAll - should update existing ids and count only rows that matched")
+        @Test
+        void updateAll_shouldUpdateExistingUsers() {
+            val newRecords = new HashMap<Integer, User>();
+            IntStream.rangeClosed(1, 12).forEach(id -> newRecords.put(id, new User("Updated" + id)));
+
+            val updated = controller.updateAll(newRecords);
+
+            assertEquals(database.mockUserCount(), updated);
+            assertThat(controller.read(1)).contains(new User("Updated1"));
+            assertThat(controller.read(9)).contains(new User("Updated9"));
+        }
+
+        @DisplayName("CrudController#updateAll - should throw IllegalArgumentException for id <= 0")
+        @Test
+        void updateAll_shouldThrow_whenIdInvalid() {
+            val newRecords = new HashMap<Integer, User>();
+            newRecords.put(1, new User("Updated"));
+            newRecords.put(0, new User("Updated"));
+
+            assertThrows(IllegalArgumentException.class, () -> controller.updateAll(newRecords));
+        }
+
+    }
+
+    @Nested
+    class DeleteAll {
+
+        @SneakyThrows
+        @DisplayName("CrudController#deleteAll - should delete existing ids and count only rows that matched")
+        @Test
+        void deleteAll_shouldDeleteExistingUsers() {
+            val deleted = controller.deleteAll(new int[]{1, 2, 3, 10, Integer.MAX_VALUE});
+
+            assertEquals(3, deleted);
+            assertEquals(database.mockUserCount() - 3, database.countUsers());
+        }
+
+        @DisplayName("CrudController#deleteAll - should throw IllegalArgumentException and delete nothing for id <= 0")
+        @Test
+        void deleteAll_shouldThrow_whenIdInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> controller.deleteAll(new int[]{1, -1}));
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+
+    }
+
+    private static List<User> generateUsers(int size) {
+        val users = new ArrayList<User>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new User("user" + i));
+        }
+        return users;
+    }
+
+}
@@ -0,0 +1,109 @@
+package controller;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CrudControllerLifecycleTest {
+
+    private H2TestDatabase database;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("lifecycle");
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @SneakyThrows
+    @DisplayName("CrudController#close - should shut down the pool created by the controller")
+    @Test
+    void close_shouldShutDownOwnedPool() {
+        val controller = database.createController();
+        assertThat(controller.read(1)).contains(new User("Krabelard"));
+
+        controller.close();
+
+        assertThrows(SQLException.class, () -> controller.read(1));
+    }
+
+    @SneakyThrows
+    @DisplayName("CrudController#close - should leave an injected DataSource open")
+    @Test
+    void close_shouldNotCloseInjectedDataSource() {
+        val hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(database.getUrl());
+        hikariConfig.setUsername(H2TestDatabase.USERNAME);
+        hikariConfig.setPassword(H2TestDatabase.PASSWORD);
+
+        try (val dataSource = new HikariDataSource(hikariConfig)) {
+            try (val controller = new CrudController(dataSource)) {
+                assertThat(controller.read(1)).contains(new User("Krabelard"));
+            }
+
+            assertFalse(dataSource.isClosed());
+            assertDoesNotThrow(() -> dataSource.getConnection().close());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("CrudController - should apply pool size and connection timeout from config")
+    @Test
+    void constructor_shouldApplyPoolSettings() {
+        val config = CrudControllerConfig.builder()
+            .jdbcUrl(database.getUrl())
+            .username(H2TestDatabase.USERNAME)
+            .password(H2TestDatabase.PASSWORD)
+            .maximumPoolSize(2)
+            .connectionTimeout(Duration.ofMillis(250))
+            .build();
+
+        try (
+            val controller = new CrudController(config);
+            // every open stream pins one pooled connection
+            val first = controller.streamAll();
+            val second = controller.streamAll()
+        ) {
+            assertThrows(SQLTransientConnectionException.class, () -> controller.read(1));
+        }
+    }
+
+    @DisplayName("CrudController - should throw IllegalArgumentException for non-positive batch or fetch size")
+    @Test
+    void constructor_shouldThrow_whenSizesInvalid() {
+        val base = CrudControllerConfig.of(database.getUrl(), H2TestDatabase.USERNAME, H2TestDatabase.PASSWORD);
+
+        assertThrows(IllegalArgumentException.class, () -> new CrudController(base.toBuilder().batchSize(0).build()));
+        assertThrows(IllegalArgumentException.class, () -> new CrudController(base.toBuilder().fetchSize(-1).build()));
+    }
+
+    @DisplayName("CrudController - should throw IllegalArgumentException for negative query timeouts")
+    @Test
+    void constructor_shouldThrow_whenQueryTimeoutNegative() {
+        val base = CrudControllerConfig.of(database.getUrl(), H2TestDatabase.USERNAME, H2TestDatabase.PASSWORD);
+
+        assertThrows(IllegalArgumentException.class, () -> new CrudController(base.toBuilder().queryTimeout(Duration.ofSeconds(-1)).build()));
+        assertThrows(IllegalArgumentException.class, () -> new CrudController(base.toBuilder()
+            .queryTimeouts(Map.of(CrudOperation.READ, Duration.ofMillis(-1)))
+            .build()));
+    }
+
+}
@@ -0,0 +1,148 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CrudControllerStreamTest {
+
+    private static final int LARGE_TABLE_SIZE = 500_000;
+    private static final long RETAINED_HEAP_LIMIT = 16L * 1024 * 1024;
+
+    private H2TestDatabase database;
+    private CrudController controller;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("stream");
+        controller = database.createController();
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @Nested
+    class StreamAll {
+
+        @SneakyThrows
+        @DisplayName("CrudController#streamAll - should return every User with its id in id order")
+        @Test
+        void streamAll_shouldReturnAllUsersInIdOrder() {
+            try (val stream = controller.streamAll()) {
+                val entities = stream.toList();
+
+                assertEquals(database.mockUserCount(), entities.size());
+                assertEquals(new Entity<>(1, new User("Krabelard")), entities.get(0));
+                assertThat(entities).extracting(Entity::id).isSorted();
+            }
+        }
+
+        @DisplayName("CrudController#streamAll - should release its connection when the stream is closed")
+        @Test
+        void streamAll_shouldReleaseConnection_whenStreamClosed() {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                // more partially consumed streams than the pool has connections
+                for (int i = 0; i < 50; i++) {
+                    try (val stream = controller.streamAll()) {
+                        assertTrue(stream.findFirst().isPresent());
+                    }
+                }
+                controller.update(1, new User("Updated"));
+                assertThat(controller.read(1)).contains(new User("Updated"));
+            });
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#streamAll - should keep retained heap flat while iterating a large table")
+        @Test
+        void streamAll_shouldKeepMemoryBounded_whenTableLarge() {
+            database.insertGeneratedUsers(LARGE_TABLE_SIZE);
+            val baseline = usedHeapAfterGc();
+
+            long rows = 0;
+            long maxRetained = 0;
+            try (val stream = controller.streamAll()) {
+                val iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    if (++rows % 100_000 == 0) {
+                        maxRetained = Math.max(maxRetained, usedHeapAfterGc() - baseline);
+                    }
+                }
+            }
+
+            assertEquals(database.mockUserCount() + LARGE_TABLE_SIZE, rows);
+            assertThat(maxRetained).isLessThan(RETAINED_HEAP_LIMIT);
+        }
+
+    }
+
+    @Nested
+    class Page {
+
+        @SneakyThrows
+        @DisplayName("CrudController#page - should walk the whole table with keyset pagination")
+        @ParameterizedTest(name = "{index} -> limit={0}")
+        @ValueSource(ints = {1, 2, 4, 9, 100})
+        void page_shouldVisitEveryUserOnce(int limit) {
+            val visited = new ArrayList<Entity<User>>();
+            int afterId = 0;
+            while (true) {
+                val page = controller.page(afterId, limit);
+                assertThat(page.size()).isLessThanOrEqualTo(limit);
+                if (page.isEmpty()) {
+                    break;
+                }
+                visited.addAll(page);
+                afterId = page.get(page.size() - 1).id();
+            }
+
+            assertEquals(database.mockUserCount(), visited.size());
+            assertThat(visited).extracting(Entity::id).isSorted().doesNotHaveDuplicates();
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#page - should return empty list past the last id")
+        @Test
+        void page_shouldReturnEmptyList_whenAfterLastId() {
+            assertTrue(controller.page(9, 10).isEmpty());
+        }
+
+        @DisplayName("CrudController#page - should throw IllegalArgumentException for invalid arguments")
+        @Test
+        void page_shouldThrow_whenArgumentsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> controller.page(-1, 10));
+            assertThrows(IllegalArgumentException.class, () -> controller.page(0, 0));
+        }
+
+    }
+
+    private static long usedHeapAfterGc() {
+        val runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -2,6 +2,7 @@ package controller;
 
 import lombok.SneakyThrows;
 import lombok.val;
+import model.Entity;
 import model.User;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.ITable;
@@ -18,6 +19,7 @@ import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -26,7 +28,7 @@ class CrudControllerTest {
 
     private final static String TABLE_NAME = "users";
     private ITable userTable;
-    private CRUD<User> controller;
+    private UserCRUD controller;
     private IDatabaseConnection connection;
     private DatabaseTestConfigurator databaseTestConfigurator;
 
@@ -68,6 +70,17 @@ class CrudControllerTest {
             assertEquals(userTable.getRowCount() + 1, resultingTable.getRowCount());
         }
 
+        @SneakyThrows
+        @DisplayName("CrudController#create - should return generated id of the new database entry")
+        @ParameterizedTest(name = "{index} -> user={0}")
+        @MethodSource("correctUserGenerator")
+        void create_shouldReturnGeneratedId_whenUserValid(User user) {
+            val id = controller.create(user);
+
+            assertThat(id).isGreaterThan(userTable.getRowCount());
+            assertThat(controller.readEntity(id)).contains(new Entity<>(id, user));
+        }
+
         @SneakyThrows
         @DisplayName("CrudController#create - should throw SQLException for User object invalid by SQL standard")
         @ParameterizedTest(name = "{index} -> user={0}")
@@ -106,13 +119,14 @@ class CrudControllerTest {
         private static Stream<Arguments> incorrectUserGeneratorPsqlManaged() {
             return Stream.of(
                 Arguments.of(new User("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa")),
-                Arguments.of(new User("\0"))
+                Arguments.of(new User("\0")),
+                Arguments.of(new User("Krabelard"))
             );
         }
 
         private static Stream<Arguments> correctUserGenerator() {
             return Stream.of(
-                Arguments.of(new User("Krabelard")),
+                Arguments.of(new User("Krabelard Jr")),
                 Arguments.of(new User("Zażółć gęślą jaźń")),
                 Arguments.of(new User("TEST")),
                 Arguments.of(new User("SELECT * FROM users")),
@@ -329,4 +343,73 @@ class CrudControllerTest {
         }
     }
 
+    @Nested
+    class Upsert {
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsert - should overwrite existing record for existing id")
+        @ParameterizedTest(name = "{index} -> id={0}")
+        @ValueSource(ints = {1, 9})
+        void upsert_shouldUpdateUser_whenIdExists(int id) {
+            controller.upsert(id, new User("Upserted"));
+
+            assertThat(controller.read(id)).contains(new User("Upserted"));
+            assertThat(connection.getRowCount(TABLE_NAME)).isEqualTo(userTable.getRowCount());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsert - should insert record under the given id for non-existent id")
+        @ParameterizedTest(name = "{index} -> id={0}")
+        @ValueSource(ints = {1_000_000, Integer.MAX_VALUE})
+        void upsert_shouldInsertUser_whenIdDoesNotExist(int id) {
+            controller.upsert(id, new User("Upserted"));
+
+            assertThat(controller.read(id)).contains(new User("Upserted"));
+            assertThat(connection.getRowCount(TABLE_NAME)).isEqualTo(userTable.getRowCount() + 1);
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#updateIf - should update only when the stored record matches the expected one")
+        @Test
+        void updateIf_shouldApplyOnlyOnce_whenExpectedMatches() {
+            val expected = controller.read(1).orElseThrow();
+
+            assertTrue(controller.updateIf(1, expected, new User("Swapped")));
+            assertFalse(controller.updateIf(1, expected, new User("SwappedAgain")));
+            assertThat(controller.read(1)).contains(new User("Swapped"));
+        }
+    }
+
+    @Nested
+    class FindByUsername {
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsername - should return the User with its id for an existing username")
+        @ParameterizedTest(name = "{index} -> username={0}")
+        @ValueSource(strings = {"Krabelard", "Dziok"})
+        void findByUsername_shouldReturnEntity_whenUsernameExists(String username) {
+            val entity = controller.findByUsername(username).orElseThrow();
+
+            assertEquals(username, entity.record().username());
+            assertThat(controller.read(entity.id())).contains(entity.record());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsername - should return empty Optional for an unknown username")
+        @Test
+        void findByUsername_shouldReturnEmpty_whenUsernameUnknown() {
+            assertThat(controller.findByUsername("krabelard")).isEmpty();
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsernamePrefix - should return matching Users ordered by username")
+        @Test
+        void findByUsernamePrefix_shouldReturnMatchesInOrder() {
+            val entities = controller.findByUsernamePrefix("G", 10);
+
+            assertThat(entities).extracting(entity -> entity.record().username())
+                .containsExactly("Gniok", "Gordon", "Grypsztals");
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CrudControllerUpsertTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    private H2TestDatabase database;
+    private CrudController controller;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("upsert");
+        controller = database.createController(BATCH_SIZE);
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @Nested
+    class Upsert {
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsert - should overwrite existing record for existing id")
+        @Test
+        void upsert_shouldUpdateUser_whenIdExists() {
+            controller.upsert(1, new User("Upserted"));
+
+            assertThat(controller.read(1)).contains(new User("Upserted"));
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsert - should insert record under the given id for non-existent id")
+        @Test
+        void upsert_shouldInsertUser_whenIdDoesNotExist() {
+            controller.upsert(1_000, new User("Upserted"));
+
+            assertThat(controller.read(1_000)).contains(new User("Upserted"));
+            assertEquals(database.mockUserCount() + 1, database.countUsers());
+        }
+
+        @DisplayName("CrudController#upsert - should throw IllegalArgumentException for invalid arguments")
+        @Test
+        void upsert_shouldThrow_whenArgumentsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> controller.upsert(0, new User("Upserted")));
+            assertThrows(IllegalArgumentException.class, () -> controller.upsert(1, null));
+            assertThrows(IllegalArgumentException.class, () -> controller.upsert(1, new User(" ")));
+        }
+    }
+
+    @Nested
+    class UpdateIf {
+
+        @SneakyThrows
+        @DisplayName("CrudController#updateIf - should update and report true when the stored record matches")
+        @Test
+        void updateIf_shouldUpdate_whenExpectedMatches() {
+            assertTrue(controller.updateIf(1, new User("Krabelard"), new User("Swapped")));
+
+            assertThat(controller.read(1)).contains(new User("Swapped"));
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#updateIf - should leave the record and report false when the stored record differs")
+        @ParameterizedTest(name = "{index} -> id={0}")
+        @ValueSource(ints = {2, 1_000})
+        void updateIf_shouldNotUpdate_whenExpectedDiffers(int id) {
+            val before = controller.read(id);
+
+            assertFalse(controller.updateIf(id, new User("Krabelard"), new User("Swapped")));
+
+            assertEquals(before, controller.read(id));
+        }
+
+        @DisplayName("CrudController#updateIf - should throw IllegalArgumentException when expected is null")
+        @Test
+        void updateIf_shouldThrow_whenExpectedNull() {
+            assertThrows(IllegalArgumentException.class, () -> controller.updateIf(1, null, new User("Swapped")));
+        }
+    }
+
+    @Nested
+    class UpsertAll {
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsertAll - should update existing and insert missing ids across batches")
+        @Test
+        void upsertAll_shouldUpdateAndInsert() {
+            val records = new HashMap<Integer, User>();
+            for (int id = 1; id <= BATCH_SIZE * 2; id++) {
+                records.put(id, new User("upserted" + id));
+            }
+
+            val affected = controller.upsertAll(records);
+
+            assertEquals(records.size(), affected);
+            assertEquals(records.size(), database.countUsers());
+            assertEquals(records, controller.readMany(records.keySet()));
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#upsertAll - should write nothing when one User is invalid")
+        @Test
+        void upsertAll_shouldWriteNothing_whenUserInvalid() {
+            val records = Map.of(1, new User("upserted"), 1_000, new User(" "));
+
+            assertThrows(IllegalArgumentException.class, () -> controller.upsertAll(records));
+
+            assertThat(controller.read(1)).contains(new User("Krabelard"));
+            assertEquals(database.mockUserCount(), database.countUsers());
+        }
+    }
+}
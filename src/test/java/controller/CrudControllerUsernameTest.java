@@ -0,0 +1,117 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CrudControllerUsernameTest {
+
+    private H2TestDatabase database;
+    private CrudController controller;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("username");
+        controller = database.createController();
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @Nested
+    class FindByUsername {
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsername - should return the id stored for the username")
+        @Test
+        void findByUsername_shouldReturnEntity_whenUsernameExists() {
+            val entity = controller.findByUsername("Gniok").orElseThrow();
+
+            assertEquals(5, entity.id());
+            assertEquals(new User("Gniok"), entity.record());
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsername - should match the username exactly")
+        @ParameterizedTest(name = "{index} -> username={0}")
+        @ValueSource(strings = {"gniok", "Gnio", "Gniok ", "Gnio_", "Gnio%"})
+        void findByUsername_shouldReturnEmpty_whenUsernameOnlySimilar(String username) {
+            assertThat(controller.findByUsername(username)).isEmpty();
+        }
+
+        @DisplayName("CrudController#findByUsername - should throw IllegalArgumentException for blank username")
+        @ParameterizedTest(name = "{index} -> username=\"{0}\"")
+        @ValueSource(strings = {"", " "})
+        void findByUsername_shouldThrow_whenUsernameBlank(String username) {
+            assertThrows(IllegalArgumentException.class, () -> controller.findByUsername(username));
+            assertThrows(IllegalArgumentException.class, () -> controller.findByUsername(null));
+        }
+    }
+
+    @Nested
+    class FindByUsernamePrefix {
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsernamePrefix - should return matches ordered by username up to the limit")
+        @Test
+        void findByUsernamePrefix_shouldReturnOrderedMatches() {
+            assertThat(usernames(controller.findByUsernamePrefix("G", 10)))
+                .containsExactly("Gniok", "Gordon", "Grypsztals");
+            assertThat(usernames(controller.findByUsernamePrefix("G", 2)))
+                .containsExactly("Gniok", "Gordon");
+            assertThat(usernames(controller.findByUsernamePrefix("Sz", 10)))
+                .containsExactly("Szniok");
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsernamePrefix - should treat LIKE wildcards in the prefix literally")
+        @Test
+        void findByUsernamePrefix_shouldEscapeWildcards() {
+            controller.create(new User("G_rdon"));
+            controller.create(new User("50%off"));
+            controller.create(new User("back\\slash"));
+
+            assertThat(usernames(controller.findByUsernamePrefix("G_", 10))).containsExactly("G_rdon");
+            assertThat(usernames(controller.findByUsernamePrefix("%", 10))).isEmpty();
+            assertThat(usernames(controller.findByUsernamePrefix("50%", 10))).containsExactly("50%off");
+            assertThat(usernames(controller.findByUsernamePrefix("back\\", 10))).containsExactly("back\\slash");
+        }
+
+        @SneakyThrows
+        @DisplayName("CrudController#findByUsernamePrefix - should return every User for an empty prefix")
+        @Test
+        void findByUsernamePrefix_shouldReturnAll_whenPrefixEmpty() {
+            assertEquals(database.mockUserCount(), controller.findByUsernamePrefix("", 100).size());
+        }
+
+        @DisplayName("CrudController#findByUsernamePrefix - should throw IllegalArgumentException for invalid arguments")
+        @Test
+        void findByUsernamePrefix_shouldThrow_whenArgumentsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> controller.findByUsernamePrefix(null, 10));
+            assertThrows(IllegalArgumentException.class, () -> controller.findByUsernamePrefix("G", 0));
+        }
+    }
+
+    private static List<String> usernames(List<Entity<User>> entities) {
+        return entities.stream().map(entity -> entity.record().username()).toList();
+    }
+}
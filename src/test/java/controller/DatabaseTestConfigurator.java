@@ -2,7 +2,6 @@ package controller;
 
 import lombok.Getter;
 import lombok.SneakyThrows;
-import model.User;
 import org.dbunit.IDatabaseTester;
 import org.dbunit.JdbcDatabaseTester;
 import org.dbunit.PropertiesBasedJdbcDatabaseTester;
@@ -32,7 +31,7 @@ class DatabaseTestConfigurator {
     private final ITable userTable;
 
     @Getter
-    private final CRUD<User> userCrud;
+    private final UserCRUD userCrud;
 
     @Getter
     private final IDatabaseConnection databaseConnection;
@@ -81,7 +80,7 @@ class DatabaseTestConfigurator {
         return connection;
     }
 
-    private static CRUD<User> createCrudController() {
+    private static UserCRUD createCrudController() {
         return new CrudController(DB_UNIT_CONNECTION_SGREL_SHORT, USERNAME, PASSWORD);
     }
 
@@ -0,0 +1,93 @@
+package controller;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+class H2TestDatabase {
+
+    static final String USERNAME = "sa";
+    static final String PASSWORD = "";
+
+    private static final String[] MOCK_USERNAMES = {
+        "Krabelard", "Gordon", "Sysy", "Szniok", "Gniok", "Craig", "MrZaroweczka", "Grypsztals", "Dziok"
+    };
+
+    @Getter
+    private final String url;
+
+    H2TestDatabase(String name) {
+        this(name, "");
+    }
+
+    H2TestDatabase(String name, String settings) {
+        url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1" + settings;
+    }
+
+    @SneakyThrows
+    void recreateSchema() {
+        try (
+            val connection = openConnection();
+            val statement = connection.createStatement()
+        ) {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users ( id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, username VARCHAR(31) NOT NULL )");
+        }
+    }
+
+    @SneakyThrows
+    void insertMockUsers() {
+        try (
+            val connection = openConnection();
+            val preparedStatement = connection.prepareStatement("INSERT INTO users VALUES(DEFAULT, ?)")
+        ) {
+            for (val username : MOCK_USERNAMES) {
+                preparedStatement.setString(1, username);
+                preparedStatement.executeUpdate();
+            }
+        }
+    }
+
+    @SneakyThrows
+    void insertGeneratedUsers(int count) {
+        try (
+            val connection = openConnection();
+            val statement = connection.createStatement()
+        ) {
+            statement.executeUpdate("INSERT INTO users(username) SELECT 'user' || X FROM SYSTEM_RANGE(1, " + count + ")");
+        }
+    }
+
+    int mockUserCount() {
+        return MOCK_USERNAMES.length;
+    }
+
+    @SneakyThrows
+    int countUsers() {
+        try (
+            val connection = openConnection();
+            val statement = connection.createStatement();
+            val resultSet = statement.executeQuery("SELECT COUNT(*) FROM users")
+        ) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    CrudController createController() {
+        return new CrudController(url, USERNAME, PASSWORD);
+    }
+
+    CrudController createController(int batchSize) {
+        return new CrudController(url, USERNAME, PASSWORD, batchSize);
+    }
+
+    @SneakyThrows
+    Connection openConnection() {
+        return DriverManager.getConnection(url, USERNAME, PASSWORD);
+    }
+
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedCrudTest {
+
+    @Mock
+    private UserCRUD delegate;
+
+    private HdrHistogramCrudMetrics metrics;
+    private InstrumentedCrud instrumentedCrud;
+
+    @BeforeEach
+    void setup() {
+        metrics = new HdrHistogramCrudMetrics();
+        instrumentedCrud = new InstrumentedCrud(delegate, metrics);
+    }
+
+    @SneakyThrows
+    @DisplayName("InstrumentedCrud - should record one latency sample per call")
+    @Test
+    void shouldRecordLatencyPerOperation() {
+        when(delegate.read(1)).thenReturn(Optional.of(new User("Krabelard")));
+
+        for (int i = 0; i < 3; i++) {
+            instrumentedCrud.read(1);
+        }
+        instrumentedCrud.delete(1);
+
+        assertEquals(3, metrics.latency(CrudOperation.READ).getTotalCount());
+        assertEquals(1, metrics.latency(CrudOperation.DELETE).getTotalCount());
+        assertEquals(0, metrics.latency(CrudOperation.UPDATE).getTotalCount());
+    }
+
+    @SneakyThrows
+    @DisplayName("InstrumentedCrud - should count errors by SQLState and rethrow them")
+    @Test
+    void shouldCountErrorsBySqlState() {
+        doThrow(new SQLException("connection refused", "08001"))
+            .doThrow(new SQLException("serialization failure", "40001"))
+            .doThrow(new SQLException("no state"))
+            .when(delegate).update(1, new User("Updated"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(SQLException.class, () -> instrumentedCrud.update(1, new User("Updated")));
+        }
+
+        assertEquals(1, metrics.errorCount(CrudOperation.UPDATE, "08001"));
+        assertEquals(1, metrics.errorCount(CrudOperation.UPDATE, "40001"));
+        assertEquals(1, metrics.errorCount(CrudOperation.UPDATE, null));
+        assertEquals(3, metrics.errorCount(CrudOperation.UPDATE));
+        assertEquals(3, metrics.latency(CrudOperation.UPDATE).getTotalCount());
+    }
+
+    @SneakyThrows
+    @DisplayName("InstrumentedCrud - should record rows affected by bulk operations")
+    @Test
+    void shouldRecordRowsAffected() {
+        when(delegate.createAll(anyCollection())).thenReturn(new int[]{10, 11, 12});
+        when(delegate.readMany(anyCollection())).thenReturn(Map.of(1, new User("Krabelard")));
+        when(delegate.deleteAll(new int[]{10, 11})).thenReturn(2);
+
+        instrumentedCrud.createAll(List.of(new User("a"), new User("b"), new User("c")));
+        instrumentedCrud.readMany(List.of(1, 2));
+        instrumentedCrud.deleteAll(new int[]{10, 11});
+
+        assertEquals(3, metrics.rowsAffected(CrudOperation.CREATE_ALL));
+        assertEquals(1, metrics.rowsAffected(CrudOperation.READ_MANY));
+        assertEquals(2, metrics.rowsAffected(CrudOperation.DELETE_ALL));
+    }
+
+    @SneakyThrows
+    @DisplayName("InstrumentedCrud#findByUsername - should record username lookups under their own operations")
+    @Test
+    void findByUsername_shouldRecordOwnOperations() {
+        val controller = mock(CrudController.class);
+        when(controller.findByUsername("Krabelard")).thenReturn(Optional.of(new Entity<>(1, new User("Krabelard"))));
+        when(controller.findByUsernamePrefix("Kr", 10)).thenReturn(List.of(new Entity<>(1, new User("Krabelard"))));
+        val instrumented = new InstrumentedCrud(controller, metrics);
+
+        assertThat(instrumented.findByUsername("Krabelard")).contains(new Entity<>(1, new User("Krabelard")));
+        assertThat(instrumented.findByUsernamePrefix("Kr", 10)).hasSize(1);
+
+        assertEquals(1, metrics.latency(CrudOperation.FIND_BY_USERNAME).getTotalCount());
+        assertEquals(1, metrics.latency(CrudOperation.FIND_BY_USERNAME_PREFIX).getTotalCount());
+        assertEquals(1, metrics.rowsAffected(CrudOperation.FIND_BY_USERNAME_PREFIX));
+        assertEquals(0, metrics.latency(CrudOperation.READ).getTotalCount());
+        assertEquals(0, metrics.latency(CrudOperation.PAGE).getTotalCount());
+    }
+
+    @DisplayName("InstrumentedCrud#findByUsername - should throw UnsupportedOperationException when the delegate has no username lookups")
+    @Test
+    void findByUsername_shouldThrow_whenDelegateUnsupported() {
+        assertThrows(UnsupportedOperationException.class, () -> instrumentedCrud.findByUsername("Krabelard"));
+    }
+
+    @SneakyThrows
+    @DisplayName("CrudController - should report pool wait time and HikariCP pool stats to its metrics")
+    @Test
+    void controller_shouldRecordPoolMetrics() {
+        val database = new H2TestDatabase("metrics");
+        database.recreateSchema();
+        database.insertMockUsers();
+        val config = CrudControllerConfig.builder()
+            .jdbcUrl(database.getUrl())
+            .username(H2TestDatabase.USERNAME)
+            .password(H2TestDatabase.PASSWORD)
+            .metrics(metrics)
+            .slowQueryThreshold(Duration.ofNanos(1))
+            .build();
+
+        try (val controller = new CrudController(config)) {
+            for (int i = 1; i <= 5; i++) {
+                controller.read(i);
+            }
+        }
+
+        assertEquals(5, metrics.poolWait().getTotalCount());
+        assertTrue(metrics.poolStats().isPresent());
+        assertThat(metrics.connectionUsage().getTotalCount()).isEqualTo(5);
+    }
+
+}
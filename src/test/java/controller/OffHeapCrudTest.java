@@ -0,0 +1,124 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OffHeapCrudTest {
+
+    private H2TestDatabase database;
+    private CrudController controller;
+    private OffHeapCrud crud;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("offheap");
+        controller = database.createController();
+    }
+
+    @SneakyThrows
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+        crud = OffHeapCrud.warmUp(controller, 16);
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @DisplayName("OffHeapCrud.warmUp - should load every User of the table")
+    @Test
+    void warmUp_shouldLoadAllUsers() {
+        assertEquals(database.mockUserCount(), crud.size());
+        assertThat(crud.read(1)).contains(new User("Krabelard"));
+        assertThat(crud.read(9)).contains(new User("Dziok"));
+    }
+
+    @SneakyThrows
+    @DisplayName("OffHeapCrud#findByUsername - should look usernames up in the database")
+    @Test
+    void findByUsername_shouldUseDatabase() {
+        crud.update(2, new User("Renamed"));
+
+        assertThat(crud.findByUsername("Renamed")).contains(new Entity<>(2, new User("Renamed")));
+        assertThat(crud.findByUsername("Gordon")).isEmpty();
+        assertThat(crud.findByUsernamePrefix("Gn", 5)).extracting(Entity::id).containsExactly(5);
+    }
+
+    @SneakyThrows
+    @DisplayName("OffHeapCrud#read - should answer from the store without querying the database")
+    @Test
+    void read_shouldNotQueryDatabase() {
+        controller.update(1, new User("ChangedBehindTheStore"));
+
+        assertThat(crud.read(1)).contains(new User("Krabelard"));
+        assertThat(crud.read(10)).isEmpty();
+        assertEquals(Map.of(2, new User("Gordon")), crud.readMany(List.of(2, 10)));
+    }
+
+    @SneakyThrows
+    @DisplayName("OffHeapCrud - should write through to the database and the store")
+    @Test
+    void writes_shouldReachDatabaseAndStore() {
+        val id = crud.create(new User("Created"));
+        crud.update(2, new User("Updated"));
+        crud.delete(3);
+        crud.upsert(1_000, new User("Upserted"));
+
+        for (val reader : List.<CRUD<User>>of(crud, controller)) {
+            assertThat(reader.read(id)).contains(new User("Created"));
+            assertThat(reader.read(2)).contains(new User("Updated"));
+            assertThat(reader.read(3)).isEmpty();
+            assertThat(reader.read(1_000)).contains(new User("Upserted"));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("OffHeapCrud - should keep bulk writes consistent with the database")
+    @Test
+    void bulkWrites_shouldReachDatabaseAndStore() {
+        val ids = crud.createAll(List.of(new User("First"), new User("Second")));
+        crud.updateAll(Map.of(1, new User("Updated"), 1_000, new User("Missing")));
+        crud.deleteAll(new int[]{2, 3});
+
+        assertThat(crud.read(ids[0])).contains(new User("First"));
+        assertThat(crud.read(ids[1])).contains(new User("Second"));
+        assertThat(crud.read(1)).contains(new User("Updated"));
+        assertThat(crud.read(1_000)).isEmpty();
+        assertThat(crud.read(2)).isEmpty();
+        assertEquals(database.countUsers(), crud.size());
+    }
+
+    @SneakyThrows
+    @DisplayName("OffHeapCrud#updateIf - should change the store only when the database applied the swap")
+    @Test
+    void updateIf_shouldFollowDatabaseResult() {
+        assertFalse(crud.updateIf(1, new User("Gordon"), new User("Swapped")));
+        assertThat(crud.read(1)).contains(new User("Krabelard"));
+
+        crud.updateIf(1, new User("Krabelard"), new User("Swapped"));
+        assertThat(crud.read(1)).contains(new User("Swapped"));
+    }
+
+    @DisplayName("OffHeapCrud - should leave the store unchanged when the database rejects a write")
+    @Test
+    void update_shouldNotChangeStore_whenWriteRejected() {
+        assertThrows(IllegalArgumentException.class, () -> crud.update(1, new User(" ")));
+
+        assertThat(crud.read(1)).contains(new User("Krabelard"));
+    }
+}
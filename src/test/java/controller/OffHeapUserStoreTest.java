@@ -0,0 +1,100 @@
+package controller;
+
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapUserStoreTest {
+
+    @DisplayName("OffHeapUserStore - should return stored usernames, including multi-byte UTF-8")
+    @Test
+    void put_shouldStoreUsernames() {
+        val store = new OffHeapUserStore(4);
+
+        store.put(1, "Krabelard");
+        store.put(2, "Za\u017c\u00f3\u0142\u0107");
+        store.put(Integer.MAX_VALUE, "Max");
+
+        assertEquals("Krabelard", store.get(1));
+        assertEquals("Za\u017c\u00f3\u0142\u0107", store.get(2));
+        assertEquals("Max", store.get(Integer.MAX_VALUE));
+        assertNull(store.get(3));
+        assertEquals(3, store.size());
+    }
+
+    @DisplayName("OffHeapUserStore#put - should replace the username of an existing id")
+    @Test
+    void put_shouldReplaceUsername_whenIdExists() {
+        val store = new OffHeapUserStore(4);
+
+        store.put(1, "Krabelard");
+        store.put(1, "Gordon");
+
+        assertEquals("Gordon", store.get(1));
+        assertEquals(1, store.size());
+    }
+
+    @DisplayName("OffHeapUserStore#remove - should keep the rest of the probe run reachable")
+    @Test
+    void remove_shouldKeepOtherIdsReachable() {
+        val store = new OffHeapUserStore(16);
+        for (int id = 1; id <= 11; id++) {
+            store.put(id, "user" + id);
+        }
+
+        assertTrue(store.remove(5));
+        assertFalse(store.remove(5));
+
+        assertNull(store.get(5));
+        for (int id = 1; id <= 11; id++) {
+            if (id != 5) {
+                assertEquals("user" + id, store.get(id));
+            }
+        }
+        assertEquals(10, store.size());
+    }
+
+    @DisplayName("OffHeapUserStore - should match a HashMap through growth, overwrites, deletes and compaction")
+    @Test
+    void randomOperations_shouldMatchHashMap() {
+        val store = new OffHeapUserStore(0, 1024);
+        val expected = new HashMap<Integer, String>();
+        val random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            val id = 1 + random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(id) != null, store.remove(id));
+            } else {
+                val username = "user" + random.nextInt();
+                expected.put(id, username);
+                store.put(id, username);
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (int id = 1; id <= 5_000; id++) {
+            assertEquals(expected.get(id), store.get(id));
+        }
+        // without compaction 150 000 overwrites of ~14 bytes would need about 2 MiB of chunks
+        assertTrue(store.offHeapBytes() < 256 * 1024);
+    }
+
+    @DisplayName("OffHeapUserStore#put - should throw IllegalArgumentException for id <= 0")
+    @Test
+    void put_shouldThrow_whenIdNotPositive() {
+        val store = new OffHeapUserStore(4);
+
+        assertThrows(IllegalArgumentException.class, () -> store.put(0, "Krabelard"));
+        assertThrows(IllegalArgumentException.class, () -> store.put(-1, "Krabelard"));
+    }
+}
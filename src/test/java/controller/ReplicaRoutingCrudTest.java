@@ -0,0 +1,202 @@
+package controller;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingCrudTest {
+
+    private static final Duration NO_WINDOW = Duration.ZERO;
+
+    private H2TestDatabase primaryDatabase;
+    private H2TestDatabase firstReplicaDatabase;
+    private H2TestDatabase secondReplicaDatabase;
+    private CrudController primary;
+    private CrudController firstReplica;
+    private CrudController secondReplica;
+
+    @BeforeAll
+    void setup() {
+        primaryDatabase = new H2TestDatabase("primary");
+        firstReplicaDatabase = new H2TestDatabase("replica1");
+        secondReplicaDatabase = new H2TestDatabase("replica2");
+        primary = primaryDatabase.createController();
+        firstReplica = firstReplicaDatabase.createController();
+        secondReplica = secondReplicaDatabase.createController();
+    }
+
+    // the databases do not replicate, so each node names user 1 after itself to show where a read went
+    @SneakyThrows
+    @BeforeEach
+    void reloadDataSet() {
+        for (val database : List.of(primaryDatabase, firstReplicaDatabase, secondReplicaDatabase)) {
+            database.recreateSchema();
+            database.insertMockUsers();
+        }
+        firstReplica.update(1, new User("Replica1"));
+        secondReplica.update(1, new User("Replica2"));
+    }
+
+    @AfterAll
+    void tearDown() {
+        primary.close();
+        firstReplica.close();
+        secondReplica.close();
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud#read - should alternate between replicas with round-robin selection")
+    @Test
+    void read_shouldAlternateReplicas_whenRoundRobin() {
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica, secondReplica), ReplicaSelection.ROUND_ROBIN, NO_WINDOW);
+
+        val usernames = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            usernames.add(router.read(1).orElseThrow().username());
+        }
+
+        assertEquals(List.of("Replica1", "Replica2", "Replica1", "Replica2"), usernames);
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud - should route bulk and streaming reads to replicas")
+    @Test
+    void bulkReads_shouldGoToReplicas() {
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica), ReplicaSelection.ROUND_ROBIN, NO_WINDOW);
+
+        assertEquals(new User("Replica1"), router.readMany(List.of(1, 2)).get(1));
+        assertEquals(new User("Replica1"), router.page(0, 1).get(0).record());
+        try (val stream = router.streamAll()) {
+            assertEquals(new User("Replica1"), stream.findFirst().orElseThrow().record());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud#findByUsername - should route username lookups like reads")
+    @Test
+    void findByUsername_shouldGoToReplica_unlessPinnedToPrimary() {
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica), ReplicaSelection.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        assertThat(router.findByUsername("Replica1")).contains(new Entity<>(1, new User("Replica1")));
+        assertThat(router.findByUsernamePrefix("Repl", 5)).extracting(Entity::id).containsExactly(1);
+
+        router.update(2, new User("Updated"));
+        assertThat(router.findByUsername("Replica1")).isEmpty();
+        assertThat(router.findByUsername("Krabelard")).contains(new Entity<>(1, new User("Krabelard")));
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud - should send writes to the primary only")
+    @Test
+    void writes_shouldGoToPrimary() {
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica, secondReplica), ReplicaSelection.ROUND_ROBIN, NO_WINDOW);
+
+        val id = router.create(new User("Written"));
+        router.update(2, new User("Updated"));
+        router.delete(3);
+
+        assertThat(primary.read(id)).contains(new User("Written"));
+        assertThat(primary.read(2)).contains(new User("Updated"));
+        assertThat(primary.read(3)).isEmpty();
+        assertEquals(primaryDatabase.mockUserCount(), firstReplicaDatabase.countUsers());
+        assertThat(firstReplica.read(2)).contains(new User("Gordon"));
+        assertThat(secondReplica.read(3)).contains(new User("Sysy"));
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud#read - should prefer the replica with fewer reads in flight")
+    @Test
+    void read_shouldAvoidBusyReplica_whenLeastConnections() {
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica, secondReplica), ReplicaSelection.LEAST_CONNECTIONS, NO_WINDOW);
+
+        try (val stream = router.streamAll()) {
+            val busy = stream.findFirst().orElseThrow().record().username();
+            val idle = busy.equals("Replica1") ? "Replica2" : "Replica1";
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(idle, router.read(1).orElseThrow().username());
+            }
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud#read - should pin the writing caller to the primary within the read-your-writes window")
+    @Test
+    void read_shouldUsePrimary_whenCallerWroteWithinWindow() {
+        val window = Duration.ofMillis(300);
+        val router = new ReplicaRoutingCrud(primary, List.of(firstReplica), ReplicaSelection.ROUND_ROBIN, window);
+
+        router.update(2, new User("Updated"));
+
+        assertThat(router.read(1)).contains(new User("Krabelard"));
+        assertThat(router.read(2)).contains(new User("Updated"));
+        val otherCaller = CompletableFuture.supplyAsync(() -> readUsername(router, 1)).join();
+        assertEquals("Replica1", otherCaller);
+
+        Thread.sleep(window.toMillis() + 50);
+        assertThat(router.read(1)).contains(new User("Replica1"));
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud#read - should fall back to the primary when no replica is configured")
+    @Test
+    void read_shouldUsePrimary_whenNoReplicas() {
+        val router = new ReplicaRoutingCrud(primary, List.of(), ReplicaSelection.ROUND_ROBIN, NO_WINDOW);
+
+        assertThat(router.read(1)).contains(new User("Krabelard"));
+    }
+
+    @SneakyThrows
+    @DisplayName("ReplicaRoutingCrud.forDataSources - should route over caller-owned DataSources")
+    @Test
+    void forDataSources_shouldRouteOverDataSources() {
+        try (
+            val primaryDataSource = dataSource(primaryDatabase);
+            val replicaDataSource = dataSource(firstReplicaDatabase)
+        ) {
+            val router = ReplicaRoutingCrud.forDataSources(primaryDataSource, List.of(replicaDataSource), ReplicaSelection.ROUND_ROBIN, NO_WINDOW);
+
+            router.update(2, new User("Updated"));
+
+            assertThat(router.read(1)).contains(new User("Replica1"));
+            assertThat(primary.read(2)).contains(new User("Updated"));
+        }
+    }
+
+    @DisplayName("ReplicaRoutingCrud - should throw IllegalArgumentException for a null replica")
+    @Test
+    void constructor_shouldThrow_whenReplicaNull() {
+        val replicas = new ArrayList<CrudController>();
+        replicas.add(null);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new ReplicaRoutingCrud(primary, replicas, ReplicaSelection.ROUND_ROBIN, NO_WINDOW));
+    }
+
+    @SneakyThrows
+    private static String readUsername(CRUD<User> crud, int id) {
+        return crud.read(id).orElseThrow().username();
+    }
+
+    private static HikariDataSource dataSource(H2TestDatabase database) {
+        val hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(database.getUrl());
+        hikariConfig.setUsername(H2TestDatabase.USERNAME);
+        hikariConfig.setPassword(H2TestDatabase.PASSWORD);
+        return new HikariDataSource(hikariConfig);
+    }
+}
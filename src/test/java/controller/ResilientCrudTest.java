@@ -0,0 +1,294 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResilientCrudTest {
+
+    private static final ResilienceConfig FAST_CONFIG = ResilienceConfig.builder()
+        .maxAttempts(3)
+        .initialBackoff(Duration.ofMillis(1))
+        .maxBackoff(Duration.ofMillis(5))
+        .failureThreshold(3)
+        .openDuration(Duration.ofMillis(200))
+        .maxConcurrentCalls(1)
+        .maxBulkheadWait(Duration.ZERO)
+        .build();
+
+    @Mock
+    private UserCRUD delegate;
+
+    private ResilientCrud resilientCrud;
+
+    @BeforeEach
+    void setup() {
+        resilientCrud = new ResilientCrud(delegate, FAST_CONFIG);
+    }
+
+    @Nested
+    class Retry {
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud#read - should retry a transient failure and return the retried result")
+        @Test
+        void read_shouldRetry_whenFailureTransient() {
+            when(delegate.read(1))
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenReturn(Optional.of(new User("Krabelard")));
+
+            assertThat(resilientCrud.read(1)).contains(new User("Krabelard"));
+
+            verify(delegate, times(2)).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud#read - should give up after max attempts")
+        @Test
+        void read_shouldThrow_whenEveryAttemptFails() {
+            when(delegate.read(1)).thenThrow(new SQLException("could not serialize access", "40001"));
+
+            val failure = assertThrows(SQLException.class, () -> resilientCrud.read(1));
+
+            assertEquals("40001", failure.getSQLState());
+            verify(delegate, times(FAST_CONFIG.getMaxAttempts())).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud#create - should not retry non-idempotent operations")
+        @Test
+        void create_shouldNotRetry_whenFailureTransient() {
+            when(delegate.create(any())).thenThrow(new SQLException("connection failure", "08006"));
+
+            assertThrows(SQLException.class, () -> resilientCrud.create(new User("Krabelard")));
+
+            verify(delegate, times(1)).create(any());
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud#update - should neither retry nor count non-transient failures")
+        @Test
+        void update_shouldNotRetry_whenFailureNotTransient() {
+            val user = new User("Krabelard");
+            doThrow(new SQLException("duplicate key", "23505")).when(delegate).update(1, user);
+
+            for (int i = 0; i < FAST_CONFIG.getFailureThreshold() * 2; i++) {
+                assertThrows(SQLException.class, () -> resilientCrud.update(1, user));
+            }
+
+            verify(delegate, times(FAST_CONFIG.getFailureThreshold() * 2)).update(1, user);
+            assertEquals(CircuitBreaker.State.CLOSED, resilientCrud.circuitState());
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud#findByUsername - should retry a transient failure of a username lookup")
+        @Test
+        void findByUsername_shouldRetry_whenFailureTransient() {
+            val controller = mock(CrudController.class);
+            when(controller.findByUsername("Krabelard"))
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenReturn(Optional.of(new Entity<>(1, new User("Krabelard"))));
+
+            assertThat(new ResilientCrud(controller, FAST_CONFIG).findByUsername("Krabelard"))
+                .contains(new Entity<>(1, new User("Krabelard")));
+
+            verify(controller, times(2)).findByUsername("Krabelard");
+        }
+
+        @DisplayName("ResilientCrud#isTransient - should classify connection, serialization and timeout failures as transient")
+        @ParameterizedTest(name = "{index} -> sqlState={0}")
+        @ValueSource(strings = {"08000", "08006", "40001", "40P01"})
+        void isTransient_shouldReturnTrue_whenSqlStateTransient(String sqlState) {
+            assertTrue(ResilientCrud.isTransient(new SQLException("failure", sqlState)));
+            assertTrue(ResilientCrud.isTransient(new SQLTimeoutException("timeout")));
+            assertFalse(ResilientCrud.isTransient(new SQLException("duplicate key", "23505")));
+        }
+    }
+
+    @Nested
+    class CircuitBreaking {
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud - should fail fast without calling the delegate while the circuit is open")
+        @Test
+        void call_shouldFailFast_whenCircuitOpen() {
+            when(delegate.read(1)).thenThrow(new SQLTransientConnectionException("Connection is not available"));
+
+            assertThrows(SQLException.class, () -> resilientCrud.read(1));
+            assertEquals(CircuitBreaker.State.OPEN, resilientCrud.circuitState());
+
+            val failure = assertThrows(SQLTransientConnectionException.class, () -> resilientCrud.read(2));
+            assertThat(failure).hasMessageContaining("Circuit breaker is open");
+            verify(delegate, times(FAST_CONFIG.getFailureThreshold())).read(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud - should close the circuit after a successful trial call")
+        @Test
+        void call_shouldCloseCircuit_whenTrialSucceeds() {
+            when(delegate.read(1))
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenReturn(Optional.of(new User("Krabelard")));
+            assertThrows(SQLException.class, () -> resilientCrud.read(1));
+
+            Thread.sleep(FAST_CONFIG.getOpenDuration().toMillis() + 50);
+
+            assertThat(resilientCrud.read(1)).contains(new User("Krabelard"));
+            assertEquals(CircuitBreaker.State.CLOSED, resilientCrud.circuitState());
+        }
+    }
+
+    @Nested
+    class Bulkhead {
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud - should reject calls beyond max concurrent calls")
+        @Test
+        void call_shouldReject_whenBulkheadFull() {
+            val entered = new CountDownLatch(1);
+            val release = new CountDownLatch(1);
+            when(delegate.read(1)).thenAnswer(invocation -> {
+                entered.countDown();
+                release.await();
+                return Optional.empty();
+            });
+            val executor = Executors.newSingleThreadExecutor();
+            try {
+                val blocked = executor.submit(() -> resilientCrud.read(1));
+                assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+                val failure = assertThrows(SQLTransientException.class, () -> resilientCrud.read(2));
+                assertThat(failure).hasMessageContaining("Bulkhead is full");
+                assertEquals(1, resilientCrud.inFlightCalls());
+
+                release.countDown();
+                assertTrue(blocked.get(5, TimeUnit.SECONDS).isEmpty());
+                assertEquals(0, resilientCrud.inFlightCalls());
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class H2ServerShutdown {
+
+        private H2TestDatabase database;
+        private Server server;
+        private CrudController controller;
+        private ResilientCrud crud;
+
+        @SneakyThrows
+        @BeforeEach
+        void setup() {
+            database = new H2TestDatabase("resilience");
+            database.recreateSchema();
+            database.insertMockUsers();
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            controller = new CrudController(CrudControllerConfig.builder()
+                .jdbcUrl("jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:resilience")
+                .username(H2TestDatabase.USERNAME)
+                .password(H2TestDatabase.PASSWORD)
+                .maximumPoolSize(2)
+                .connectionTimeout(Duration.ofMillis(250))
+                .queryTimeout(Duration.ofSeconds(1))
+                .build());
+            crud = new ResilientCrud(controller, ResilienceConfig.builder()
+                .maxAttempts(2)
+                .initialBackoff(Duration.ofMillis(10))
+                .maxBackoff(Duration.ofMillis(50))
+                .failureThreshold(3)
+                .openDuration(Duration.ofMillis(500))
+                .build());
+        }
+
+        @AfterEach
+        void tearDown() {
+            controller.close();
+            server.stop();
+        }
+
+        @SneakyThrows
+        @DisplayName("ResilientCrud - should open the circuit when the database goes down mid-run and close it once it is back")
+        @Test
+        void call_shouldFailFastAndRecover_whenServerStoppedMidRun() {
+            val port = server.getPort();
+            for (int i = 0; i < 5; i++) {
+                assertThat(crud.read(1)).contains(new User("Krabelard"));
+            }
+
+            server.stop();
+            for (int i = 0; i < 10 && crud.circuitState() != CircuitBreaker.State.OPEN; i++) {
+                assertThrows(SQLException.class, () -> crud.read(1));
+            }
+            assertEquals(CircuitBreaker.State.OPEN, crud.circuitState());
+
+            val start = System.nanoTime();
+            val failure = assertThrows(SQLTransientConnectionException.class, () -> crud.read(1));
+            assertThat(failure).hasMessageContaining("Circuit breaker is open");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+
+            server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+            // the pool may need a moment to reconnect, a failed trial just opens the circuit for another round
+            Optional<User> recovered = Optional.empty();
+            for (int i = 0; i < 10 && recovered.isEmpty(); i++) {
+                Thread.sleep(600);
+                try {
+                    recovered = crud.read(1);
+                } catch (SQLException e) {
+                    // still reconnecting
+                }
+            }
+
+            assertThat(recovered).contains(new User("Krabelard"));
+            assertEquals(CircuitBreaker.State.CLOSED, crud.circuitState());
+        }
+    }
+
+    @DisplayName("ResilientCrud - should throw IllegalArgumentException for invalid config")
+    @Test
+    void constructor_shouldThrow_whenConfigInvalid() {
+        val base = ResilienceConfig.defaults();
+
+        assertThrows(IllegalArgumentException.class, () -> new ResilientCrud(null, base));
+        assertThrows(IllegalArgumentException.class, () -> new ResilientCrud(delegate, base.toBuilder().maxAttempts(0).build()));
+        assertThrows(IllegalArgumentException.class, () -> new ResilientCrud(delegate, base.toBuilder().maxBackoff(Duration.ZERO).build()));
+        assertThrows(IllegalArgumentException.class, () -> new ResilientCrud(delegate, base.toBuilder().maxConcurrentCalls(0).build()));
+    }
+
+}
@@ -0,0 +1,227 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedCrudTest {
+
+    private static final int SHARD_COUNT = 3;
+
+    private final List<H2TestDatabase> databases = new ArrayList<>();
+    private final List<CrudController> controllers = new ArrayList<>();
+
+    @BeforeAll
+    void setup() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            val database = new H2TestDatabase("shard" + i);
+            databases.add(database);
+            controllers.add(database.createController());
+        }
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        databases.forEach(H2TestDatabase::recreateSchema);
+    }
+
+    @AfterAll
+    void tearDown() {
+        controllers.forEach(CrudController::close);
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud#create - should hand out unique ids, each stored on the shard that owns it")
+    @Test
+    void create_shouldStoreEachIdOnItsShard_whenHashSharded() {
+        val shardFunction = ShardFunction.hash(SHARD_COUNT);
+        try (val crud = ShardedCrud.of(controllers, shardFunction)) {
+            val ids = new HashSet<Integer>();
+            for (int i = 0; i < 30; i++) {
+                ids.add(crud.create(new User("user" + i)));
+            }
+
+            assertEquals(30, ids.size());
+            for (val id : ids) {
+                val owner = shardFunction.shardFor(id);
+                for (int shard = 0; shard < SHARD_COUNT; shard++) {
+                    assertEquals(shard == owner, controllers.get(shard).read(id).isPresent());
+                }
+            }
+            for (val database : databases) {
+                assertEquals(10, database.countUsers());
+            }
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud.of - should continue each shard's ids above the rows it already stores")
+    @Test
+    void of_shouldNotReuseStoredIds() {
+        databases.get(0).insertMockUsers();
+
+        try (val crud = ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT))) {
+            val id = IntStream.range(0, SHARD_COUNT).map(i -> createUnchecked(crud, "new" + i)).max().orElseThrow();
+
+            assertTrue(id > databases.get(0).mockUserCount());
+            assertEquals(databases.get(0).mockUserCount() + 1, databases.get(0).countUsers());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud - should route point operations to the owning shard with range sharding")
+    @Test
+    void pointOperations_shouldUseOwningShard_whenRangeSharded() {
+        val shardFunction = ShardFunction.range(100, 200);
+        try (val crud = ShardedCrud.of(controllers, shardFunction)) {
+            val ids = new ArrayList<Integer>();
+            for (int i = 0; i < SHARD_COUNT; i++) {
+                ids.add(crud.create(new User("user" + i)));
+            }
+            assertThat(ids).containsExactlyInAnyOrder(1, 101, 201);
+
+            crud.update(101, new User("Updated"));
+            crud.upsert(150, new User("Upserted"));
+            crud.delete(201);
+
+            assertThat(controllers.get(1).read(101)).contains(new User("Updated"));
+            assertThat(controllers.get(1).read(150)).contains(new User("Upserted"));
+            assertThat(crud.read(201)).isEmpty();
+            assertTrue(crud.updateIf(1, new User("user0"), new User("Swapped")));
+            assertThat(controllers.get(0).read(1)).contains(new User("Swapped"));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud#create - should skip a range shard once its ids ran out instead of storing foreign ids")
+    @Test
+    void create_shouldSkipShard_whenShardExhausted() {
+        val shardFunction = ShardFunction.range(2, 200);
+        try (val crud = ShardedCrud.of(controllers, shardFunction)) {
+            val ids = new ArrayList<Integer>();
+            for (int i = 0; i < 9; i++) {
+                ids.add(crud.create(new User("user" + i)));
+            }
+
+            assertEquals(9, new HashSet<>(ids).size());
+            assertThat(ids).contains(1, 2);
+            assertEquals(2, databases.get(0).countUsers());
+            for (val id : ids) {
+                assertThat(controllers.get(shardFunction.shardFor(id)).read(id)).isPresent();
+            }
+        }
+
+        // the shard is known to be full from the start now, and its sequence stays capped for direct inserts too
+        try (val crud = ShardedCrud.of(controllers, shardFunction)) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(shardFunction.shardFor(crud.create(new User("again" + i)))).isNotZero();
+            }
+            assertThrows(SQLException.class, () -> controllers.get(0).create(new User("overflow")));
+            assertThrows(SQLException.class, () -> controllers.get(0).create(new User("overflow")));
+            assertEquals(2, databases.get(0).countUsers());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud - should fan bulk operations out to the shards and merge the results")
+    @Test
+    void bulkOperations_shouldFanOutAndMerge() {
+        try (val crud = ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT))) {
+            val users = IntStream.range(0, 20).mapToObj(i -> new User("bulk" + i)).toList();
+
+            val ids = crud.createAll(users);
+
+            val idList = Arrays.stream(ids).boxed().toList();
+            assertEquals(users.size(), new HashSet<>(idList).size());
+            val found = crud.readMany(idList);
+            assertEquals(idList, new ArrayList<>(found.keySet()));
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(users.get(i), found.get(ids[i]));
+            }
+
+            assertEquals(2, crud.updateAll(Map.of(ids[0], new User("Updated"), ids[1], new User("Updated"))));
+            assertEquals(3, crud.deleteAll(new int[]{ids[2], ids[3], ids[4]}));
+            assertEquals(users.size() - 3, databases.stream().mapToInt(H2TestDatabase::countUsers).sum());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud#createAll - should delete the users other shards committed when one shard rejects its part")
+    @Test
+    void createAll_shouldLeaveNoUsers_whenOneShardFails() {
+        try (val crud = ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT))) {
+            val users = new ArrayList<User>();
+            IntStream.range(0, SHARD_COUNT * 3).forEach(i -> users.add(new User("bulk" + i)));
+            users.set(0, new User("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+
+            assertThrows(SQLException.class, () -> crud.createAll(users));
+
+            for (val database : databases) {
+                assertEquals(0, database.countUsers());
+            }
+            assertThat(crud.createAll(List.of(new User("after")))).hasSize(1);
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud#findByUsername - should look usernames up on every shard and merge prefix matches by username")
+    @Test
+    void findByUsername_shouldFanOut() {
+        try (val crud = ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT))) {
+            val ids = crud.createAll(List.of(new User("carol"), new User("alice"), new User("bob"), new User("dave")));
+
+            assertThat(crud.findByUsername("bob")).contains(new Entity<>(ids[2], new User("bob")));
+            assertThat(crud.findByUsername("nobody")).isEmpty();
+            assertThat(crud.findByUsernamePrefix("", 3)).extracting(entity -> entity.record().username())
+                .containsExactly("alice", "bob", "carol");
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("ShardedCrud#streamAll and #page - should merge every shard in id order")
+    @Test
+    void scans_shouldMergeShardsInIdOrder() {
+        try (val crud = ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT))) {
+            crud.createAll(IntStream.range(0, 50).mapToObj(i -> new User("scan" + i)).toList());
+
+            try (val stream = crud.streamAll()) {
+                assertThat(stream.map(Entity::id).toList()).isSorted().hasSize(50);
+            }
+            val page = crud.page(10, 7);
+            assertThat(page).extracting(Entity::id).containsExactly(11, 12, 13, 14, 15, 16, 17);
+        }
+    }
+
+    @DisplayName("ShardedCrud.of - should throw IllegalArgumentException when the shard count does not match")
+    @Test
+    void of_shouldThrow_whenShardCountMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> ShardedCrud.of(controllers, ShardFunction.hash(SHARD_COUNT + 1)));
+    }
+
+    @DisplayName("ShardFunction.range - should throw IllegalArgumentException for bounds out of order")
+    @Test
+    void range_shouldThrow_whenBoundsNotAscending() {
+        assertThrows(IllegalArgumentException.class, () -> ShardFunction.range(200, 100));
+    }
+
+    @SneakyThrows
+    private static int createUnchecked(CRUD<User> crud, String username) {
+        return crud.create(new User(username));
+    }
+}
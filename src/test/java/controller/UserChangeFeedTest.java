@@ -0,0 +1,275 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserChangeFeedTest {
+
+    private static final Duration MAX_PROPAGATION_DELAY = Duration.ofSeconds(2);
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class Postgres {
+
+        private DatabaseTestConfigurator writerConfigurator;
+        private DatabaseTestConfigurator readerConfigurator;
+        private CrudController writer;
+        private CrudController reader;
+
+        @BeforeAll
+        void setup() {
+            writerConfigurator = new DatabaseTestConfigurator();
+            readerConfigurator = new DatabaseTestConfigurator();
+            writer = (CrudController) writerConfigurator.getUserCrud();
+            reader = (CrudController) readerConfigurator.getUserCrud();
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            writerConfigurator.setUpDataSet();
+        }
+
+        @AfterEach
+        void tearDownDataSet() {
+            writerConfigurator.tearDown();
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should invalidate another controller's cache through LISTEN/NOTIFY")
+        @Test
+        void feed_shouldInvalidateCache_whenOtherControllerWrites() {
+            val cache = new CachingCrud(reader);
+            try (val feed = new UserChangeFeed(reader)) {
+                feed.subscribe(new CacheInvalidator(cache));
+                val id = writer.create(new User("Listened"));
+                assertThat(cache.read(id)).contains(new User("Listened"));
+
+                writer.update(id, new User("Renamed"));
+                awaitTrue(() -> cache.read(id).equals(Optional.of(new User("Renamed"))));
+
+                writer.delete(id);
+                awaitTrue(() -> cache.read(id).isEmpty());
+            }
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class H2 {
+
+        private H2TestDatabase database;
+        private CrudController writer;
+        private CrudController reader;
+
+        @BeforeAll
+        void setup() {
+            database = new H2TestDatabase("changes");
+            writer = database.createController();
+            reader = database.createController();
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            database.recreateSchema();
+            database.insertMockUsers();
+        }
+
+        @AfterAll
+        void tearDown() {
+            writer.close();
+            reader.close();
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should invalidate another controller's cache within a bounded delay")
+        @Test
+        void feed_shouldInvalidateCache_whenOtherControllerWrites() {
+            val cache = new CachingCrud(reader);
+            try (val feed = new UserChangeFeed(reader)) {
+                feed.subscribe(new CacheInvalidator(cache));
+                assertThat(cache.read(1)).contains(new User("Krabelard"));
+
+                writer.update(1, new User("Renamed"));
+                awaitTrue(() -> cache.read(1).equals(Optional.of(new User("Renamed"))));
+
+                writer.delete(1);
+                awaitTrue(() -> cache.read(1).isEmpty());
+            }
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should publish a change only once its transaction committed, however late")
+        @Test
+        void feed_shouldPublishAfterCommit_whenTransactionCommitsLate() {
+            val subscriber = new CollectingSubscriber();
+            val cache = new CachingCrud(reader);
+            try (val feed = new UserChangeFeed(reader)) {
+                feed.subscribe(subscriber);
+                feed.subscribe(new CacheInvalidator(cache));
+                assertThat(cache.read(1)).contains(new User("Krabelard"));
+
+                try (
+                    val connection = writer.connection();
+                    val statement = connection.createStatement()
+                ) {
+                    connection.setAutoCommit(false);
+                    statement.executeUpdate("UPDATE users SET username = 'RolledBack' WHERE id = 2");
+                    connection.rollback();
+
+                    statement.executeUpdate("UPDATE users SET username = 'Renamed' WHERE id = 1");
+                    Thread.sleep(MAX_PROPAGATION_DELAY.toMillis());
+                    assertTrue(subscriber.changes().isEmpty());
+                    assertThat(cache.read(1)).contains(new User("Krabelard"));
+                    connection.commit();
+                }
+
+                awaitTrue(() -> cache.read(1).equals(Optional.of(new User("Renamed"))));
+            }
+            subscriber.awaitCompletion();
+            assertThat(subscriber.changes()).extracting(UserChange::id).containsExactly(1);
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should coalesce repeated changes of one id and keep the latest")
+        @Test
+        void feed_shouldCoalesceChanges_whenSameIdChangedRepeatedly() {
+            val subscriber = new CollectingSubscriber();
+            try (val feed = new UserChangeFeed(reader, Duration.ofMillis(200), UserChangeFeed.DEFAULT_MAX_BATCH)) {
+                feed.subscribe(subscriber);
+                for (int i = 0; i < 100; i++) {
+                    writer.update(1, new User("version" + i));
+                }
+                writer.delete(2);
+            }
+            subscriber.awaitCompletion();
+
+            val changes = subscriber.changes();
+            assertThat(changes).hasSizeLessThan(50);
+            val latest = new HashMap<Integer, UserChange>();
+            for (val change : changes) {
+                val previous = latest.put(change.id(), change);
+                if (previous != null) {
+                    assertThat(change.version()).isGreaterThan(previous.version());
+                }
+            }
+            assertEquals(ChangeOperation.UPDATE, latest.get(1).operation());
+            assertEquals(ChangeOperation.DELETE, latest.get(2).operation());
+            for (val batch : subscriber.batches) {
+                assertEquals(batch.size(), batch.stream().mapToInt(UserChange::id).distinct().count());
+            }
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should split changes into batches of at most the max batch size")
+        @Test
+        void feed_shouldLimitBatchSize() {
+            val subscriber = new CollectingSubscriber();
+            final int[] ids;
+            try (val feed = new UserChangeFeed(reader, Duration.ofMillis(50), 4)) {
+                feed.subscribe(subscriber);
+                ids = writer.createAll(IntStream.range(0, 10).mapToObj(i -> new User("batched" + i)).toList());
+            }
+            subscriber.awaitCompletion();
+
+            assertThat(subscriber.batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(4));
+            assertThat(subscriber.changes()).extracting(UserChange::id).containsExactlyInAnyOrder(IntStream.of(ids).boxed().toArray(Integer[]::new));
+            assertThat(subscriber.changes()).extracting(UserChange::operation).containsOnly(ChangeOperation.INSERT);
+        }
+
+        @SneakyThrows
+        @DisplayName("UserChangeFeed - should stop publishing changes once closed")
+        @Test
+        void feed_shouldStopPublishing_whenClosed() {
+            val subscriber = new CollectingSubscriber();
+            val feed = new UserChangeFeed(reader);
+            feed.subscribe(subscriber);
+            feed.close();
+            subscriber.awaitCompletion();
+
+            writer.update(1, new User("Unseen"));
+
+            assertTrue(subscriber.changes().isEmpty());
+        }
+
+        @DisplayName("UserChangeFeed - should throw IllegalArgumentException for invalid arguments")
+        @Test
+        void feed_shouldThrow_whenArgumentsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> new UserChangeFeed(null));
+            assertThrows(IllegalArgumentException.class, () -> new UserChangeFeed(reader, Duration.ofMillis(-1), 1));
+            assertThrows(IllegalArgumentException.class, () -> new UserChangeFeed(reader, Duration.ZERO, 0));
+        }
+    }
+
+    @SneakyThrows
+    private static void awaitTrue(SqlCondition condition) {
+        val deadline = System.nanoTime() + MAX_PROPAGATION_DELAY.toNanos();
+        while (!condition.holds()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within " + MAX_PROPAGATION_DELAY.toMillis() + " ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCondition {
+        boolean holds() throws SQLException;
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<List<UserChange>> {
+        private final List<List<UserChange>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<UserChange> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        @SneakyThrows
+        void awaitCompletion() {
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        }
+
+        List<UserChange> changes() {
+            val changes = new ArrayList<UserChange>();
+            batches.forEach(changes::addAll);
+            return changes;
+        }
+    }
+
+}
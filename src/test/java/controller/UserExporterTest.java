@@ -0,0 +1,194 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.dbunit.database.IDatabaseConnection;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserExporterTest {
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    @SneakyThrows
+    private static byte[] export(UserExporter exporter, ExportFormat format, boolean gzip) {
+        val output = new ByteArrayOutputStream();
+        exporter.export(Channels.newChannel(output), format, gzip);
+        return output.toByteArray();
+    }
+
+    @SneakyThrows
+    private static byte[] gunzip(byte[] bytes) {
+        try (val input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readAllBytes();
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class H2ResultSet {
+
+        private H2TestDatabase database;
+        private CrudController controller;
+        private UserExporter exporter;
+
+        @BeforeAll
+        void setup() {
+            database = new H2TestDatabase("export");
+            controller = database.createController();
+            exporter = new UserExporter(controller);
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            database.recreateSchema();
+            database.insertMockUsers();
+        }
+
+        @AfterAll
+        void tearDown() {
+            controller.close();
+        }
+
+        @DisplayName("UserExporter#export - should write every User as an id,username CSV line in id order")
+        @Test
+        void export_shouldWriteCsvLines_whenFormatCsv() {
+            val lines = new String(export(exporter, ExportFormat.CSV, false), StandardCharsets.UTF_8).split("\n");
+
+            assertEquals(database.mockUserCount(), lines.length);
+            assertEquals("1,Krabelard", lines[0]);
+            assertEquals("9,Dziok", lines[8]);
+        }
+
+        @SneakyThrows
+        @DisplayName("UserExporter#export - should quote CSV values the way PostgreSQL does")
+        @Test
+        void export_shouldQuoteCsvValues_whenValueNeedsQuoting() {
+            val id = controller.create(new User("say \"hi\", bye"));
+
+            val csv = new String(export(exporter, ExportFormat.CSV, false), StandardCharsets.UTF_8);
+
+            assertThat(csv).endsWith(id + ",\"say \"\"hi\"\", bye\"\n");
+        }
+
+        @DisplayName("UserExporter#export - should produce the same bytes compressed when gzip is on")
+        @Test
+        void export_shouldGzipOutput_whenGzipEnabled() {
+            val plain = export(exporter, ExportFormat.CSV, false);
+            val compressed = export(exporter, ExportFormat.CSV, true);
+
+            assertArrayEquals(plain, gunzip(compressed));
+        }
+
+        @SneakyThrows
+        @DisplayName("UserExporter#export - should write the PostgreSQL binary COPY layout")
+        @Test
+        void export_shouldWriteCopyBinaryLayout_whenFormatBinary() {
+            val bytes = export(exporter, ExportFormat.BINARY, false);
+            assertArrayEquals(BINARY_SIGNATURE, Arrays.copyOf(bytes, BINARY_SIGNATURE.length));
+
+            try (val input = new DataInputStream(new ByteArrayInputStream(bytes, BINARY_SIGNATURE.length, bytes.length))) {
+                assertEquals(0, input.readInt());
+                assertEquals(0, input.readInt());
+
+                assertEquals(2, input.readShort());
+                assertEquals(Integer.BYTES, input.readInt());
+                assertEquals(1, input.readInt());
+                val username = new byte[input.readInt()];
+                input.readFully(username);
+                assertEquals("Krabelard", new String(username, StandardCharsets.UTF_8));
+            }
+            assertEquals(-1, (short) (((bytes[bytes.length - 2] & 0xFF) << 8) | (bytes[bytes.length - 1] & 0xFF)));
+        }
+
+        @SneakyThrows
+        @DisplayName("UserExporter#export - should write a file and report the exported row count")
+        @Test
+        void export_shouldWriteFile_whenPathGiven(@TempDir Path directory) {
+            database.insertGeneratedUsers(50_000);
+            val file = directory.resolve("users.csv.gz");
+
+            val rows = exporter.export(file, ExportFormat.CSV, true);
+
+            assertEquals(database.countUsers(), rows);
+            assertEquals(rows, new String(gunzip(Files.readAllBytes(file)), StandardCharsets.UTF_8).lines().count());
+        }
+
+        @DisplayName("UserExporter#export - should throw IllegalArgumentException when format is null")
+        @Test
+        void export_shouldThrow_whenFormatNull() {
+            assertThrows(IllegalArgumentException.class,
+                () -> exporter.export(Channels.newChannel(new ByteArrayOutputStream()), null, false));
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class PostgresCopy {
+
+        private DatabaseTestConfigurator databaseTestConfigurator;
+        private IDatabaseConnection connection;
+        private UserExporter exporter;
+
+        @BeforeAll
+        void setup() {
+            databaseTestConfigurator = new DatabaseTestConfigurator();
+            connection = databaseTestConfigurator.getDatabaseConnection();
+            exporter = new UserExporter((CrudController) databaseTestConfigurator.getUserCrud());
+        }
+
+        @BeforeEach
+        void reloadDataSet() {
+            databaseTestConfigurator.setUpDataSet();
+        }
+
+        @AfterEach
+        void tearDownDataSet() {
+            databaseTestConfigurator.tearDown();
+        }
+
+        @AfterAll
+        void tearDown() throws Exception {
+            connection.close();
+        }
+
+        @SneakyThrows
+        @DisplayName("UserExporter#export - should COPY every User out as CSV in id order")
+        @Test
+        void export_shouldCopyCsv_whenFormatCsv() {
+            // an updated row moves to the end of the heap, a plain COPY of the table would emit it last
+            databaseTestConfigurator.getUserCrud().update(1, new User("Krabelard"));
+
+            val csv = new String(gunzip(export(exporter, ExportFormat.CSV, true)), StandardCharsets.UTF_8);
+
+            assertEquals(connection.getRowCount("users"), csv.lines().count());
+            assertThat(csv).startsWith("1,Krabelard\n");
+            assertThat(csv.lines().map(line -> Integer.parseInt(line.substring(0, line.indexOf(',')))).toList()).isSorted();
+        }
+
+        @DisplayName("UserExporter#export - should COPY every User out in binary format")
+        @Test
+        void export_shouldCopyBinary_whenFormatBinary() {
+            val bytes = export(exporter, ExportFormat.BINARY, false);
+
+            assertArrayEquals(BINARY_SIGNATURE, Arrays.copyOf(bytes, BINARY_SIGNATURE.length));
+        }
+    }
+}
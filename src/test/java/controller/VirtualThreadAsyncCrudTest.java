@@ -0,0 +1,97 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VirtualThreadAsyncCrudTest {
+
+    private static final int POOL_SIZE = 4;
+    private static final int CONCURRENT_READS = 10_000;
+
+    private H2TestDatabase database;
+    private CrudController controller;
+    private VirtualThreadAsyncCrud<User> asyncCrud;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("async");
+        database.recreateSchema();
+        database.insertMockUsers();
+        controller = new CrudController(CrudControllerConfig.builder()
+            .jdbcUrl(database.getUrl())
+            .username(H2TestDatabase.USERNAME)
+            .password(H2TestDatabase.PASSWORD)
+            .maximumPoolSize(POOL_SIZE)
+            .connectionTimeout(Duration.ofSeconds(2))
+            .build());
+        asyncCrud = VirtualThreadAsyncCrud.forController(controller);
+    }
+
+    @AfterAll
+    void tearDown() {
+        asyncCrud.close();
+        controller.close();
+    }
+
+    @SneakyThrows
+    @DisplayName("VirtualThreadAsyncCrud - should complete 10k concurrent reads without exhausting threads or the pool")
+    @Test
+    void read_shouldCompleteConcurrentReads() {
+        val threads = ManagementFactory.getThreadMXBean();
+        val threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        val futures = new ArrayList<CompletableFuture<Optional<User>>>(CONCURRENT_READS);
+        for (int i = 0; i < CONCURRENT_READS; i++) {
+            futures.add(asyncCrud.read(i % database.mockUserCount() + 1));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+
+        assertThat(futures).allSatisfy(future -> assertThat(future.join()).isPresent());
+        // virtual threads are not platform threads; the pre-21 fallback adds one thread per permit
+        assertThat(threads.getPeakThreadCount() - threadsBefore).isLessThan(100);
+        assertEquals(POOL_SIZE, asyncCrud.availablePermits());
+    }
+
+    @SneakyThrows
+    @DisplayName("VirtualThreadAsyncCrud - should complete futures with the delegate's result")
+    @Test
+    void shouldCompleteWithDelegateResult() {
+        val id = asyncCrud.create(new User("Async")).get(5, TimeUnit.SECONDS);
+        asyncCrud.update(id, new User("AsyncUpdated")).get(5, TimeUnit.SECONDS);
+
+        assertThat(asyncCrud.read(id).get(5, TimeUnit.SECONDS)).contains(new User("AsyncUpdated"));
+
+        asyncCrud.delete(id).get(5, TimeUnit.SECONDS);
+        assertThat(asyncCrud.read(id).get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @DisplayName("VirtualThreadAsyncCrud - should complete futures exceptionally when the delegate throws")
+    @Test
+    void shouldCompleteExceptionally_whenDelegateThrows() {
+        val readFailure = assertThrows(ExecutionException.class, () -> asyncCrud.read(0).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, readFailure.getCause());
+
+        val createFailure = assertThrows(ExecutionException.class,
+            () -> asyncCrud.create(new User("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa")).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, createFailure.getCause());
+    }
+
+}
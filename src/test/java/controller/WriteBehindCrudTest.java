@@ -0,0 +1,264 @@
+package controller;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import model.Entity;
+import model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WriteBehindCrudTest {
+
+    private static final String TOO_LONG_USERNAME = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+    private H2TestDatabase database;
+    private CrudController controller;
+
+    @BeforeAll
+    void setup() {
+        database = new H2TestDatabase("writebehind");
+        controller = database.createController();
+    }
+
+    @AfterAll
+    void tearDown() {
+        controller.close();
+    }
+
+    @BeforeEach
+    void reloadDataSet() {
+        database.recreateSchema();
+        database.insertMockUsers();
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should keep only the last write per id and apply it on flush")
+    @Test
+    void update_shouldCoalesceWritesToSameId() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofHours(1))) {
+            for (int i = 0; i < 100; i++) {
+                writeBehind.update(1, new User("Update" + i));
+            }
+            writeBehind.delete(2);
+            writeBehind.update(2, new User("Revived"));
+            writeBehind.update(3, new User("Doomed"));
+            writeBehind.delete(3);
+
+            assertEquals(3, writeBehind.pendingCount());
+            assertThat(controller.read(1)).contains(new User("Krabelard"));
+
+            writeBehind.flush();
+
+            assertEquals(0, writeBehind.pendingCount());
+            assertThat(controller.read(1)).contains(new User("Update99"));
+            assertThat(controller.read(2)).contains(new User("Revived"));
+            assertTrue(controller.read(3).isEmpty());
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should serve buffered writes to reads before they are flushed")
+    @Test
+    void read_shouldSeePendingWrites() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofHours(1))) {
+            writeBehind.update(1, new User("Pending"));
+            writeBehind.delete(2);
+
+            assertThat(writeBehind.read(1)).contains(new User("Pending"));
+            assertTrue(writeBehind.read(2).isEmpty());
+            assertThat(writeBehind.readMany(List.of(1, 2, 3)))
+                .containsExactly(entry(1, new User("Pending")), entry(3, new User("Sysy")));
+            assertThat(controller.read(1)).contains(new User("Krabelard"));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud#findByUsername - should see buffered renames and deletes")
+    @Test
+    void findByUsername_shouldSeePendingWrites() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofHours(1))) {
+            writeBehind.update(1, new User("Renamed"));
+            writeBehind.delete(4);
+
+            assertThat(writeBehind.findByUsername("Renamed")).contains(new Entity<>(1, new User("Renamed")));
+            assertThat(writeBehind.findByUsername("Krabelard")).isEmpty();
+            assertThat(writeBehind.findByUsernamePrefix("Sz", 10)).isEmpty();
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should flush once the buffer reaches its size limit")
+    @Test
+    void update_shouldFlush_whenBufferFull() {
+        try (val writeBehind = new WriteBehindCrud(controller, 3, Duration.ofHours(1))) {
+            writeBehind.update(1, new User("One"));
+            writeBehind.update(2, new User("Two"));
+            assertThat(controller.read(1)).contains(new User("Krabelard"));
+
+            writeBehind.update(3, new User("Three"));
+
+            assertEquals(0, writeBehind.pendingCount());
+            assertThat(controller.readMany(List.of(1, 2, 3)).values())
+                .containsExactly(new User("One"), new User("Two"), new User("Three"));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should flush on its timer")
+    @Test
+    void update_shouldFlush_whenIntervalElapsed() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofMillis(20))) {
+            writeBehind.update(1, new User("Timed"));
+
+            awaitTrue(() -> controller.read(1).equals(Optional.of(new User("Timed"))));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud#close - should flush remaining writes")
+    @Test
+    void close_shouldFlushPendingWrites() {
+        val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofHours(1));
+        writeBehind.update(1, new User("Closing"));
+
+        writeBehind.close();
+
+        assertThat(controller.read(1)).contains(new User("Closing"));
+        assertThrows(IllegalStateException.class, () -> writeBehind.update(1, new User("TooLate")));
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud#flush - should commit the other writes and report the rejected ones by id")
+    @Test
+    void flush_shouldIsolateRejectedWrites_whenWriteRejected() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofHours(1))) {
+            writeBehind.update(1, new User("Fine"));
+            writeBehind.update(2, new User(TOO_LONG_USERNAME));
+            writeBehind.delete(3);
+
+            val failure = assertThrows(RejectedWritesException.class, writeBehind::flush);
+
+            assertThat(failure.failedIds()).containsExactly(2);
+            assertEquals(0, writeBehind.pendingCount());
+            assertThat(controller.read(1)).contains(new User("Fine"));
+            assertThat(controller.read(2)).contains(new User("Gordon"));
+            assertThat(controller.read(3)).isEmpty();
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should keep accepting writes after a background flush failed and report it separately")
+    @Test
+    void update_shouldSucceed_whenBackgroundFlushFailed() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofMillis(20))) {
+            writeBehind.update(1, new User(TOO_LONG_USERNAME));
+            awaitTrue(() -> writeBehind.pendingCount() == 0);
+
+            writeBehind.update(3, new User("Next"));
+            awaitTrue(() -> controller.read(3).equals(Optional.of(new User("Next"))));
+
+            val failure = writeBehind.takeBackgroundFailure();
+            assertThat(failure.failedIds()).containsExactly(1);
+            assertThat(writeBehind.takeBackgroundFailure()).isNull();
+            assertThat(controller.read(1)).contains(new User("Krabelard"));
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud#flush - should throw the writes a background flush rejected, later ones suppressed")
+    @Test
+    void flush_shouldThrowBackgroundFailure_whenTimerFlushRejectedWrites() {
+        try (val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofMillis(20))) {
+            writeBehind.update(1, new User(TOO_LONG_USERNAME));
+            awaitTrue(() -> writeBehind.pendingCount() == 0);
+            writeBehind.update(2, new User(TOO_LONG_USERNAME));
+            awaitTrue(() -> writeBehind.pendingCount() == 0);
+            writeBehind.update(3, new User("Next"));
+
+            val failure = assertThrows(RejectedWritesException.class, writeBehind::flush);
+
+            assertThat(failure.failedIds()).containsExactly(1);
+            assertThat(failure.getSuppressed()).anySatisfy(suppressed ->
+                assertThat(((RejectedWritesException) suppressed).failedIds()).containsExactly(2));
+            assertThat(controller.read(3)).contains(new User("Next"));
+            writeBehind.flush();
+        }
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud#close - should throw the writes a background flush rejected")
+    @Test
+    void close_shouldThrowBackgroundFailure_whenTimerFlushRejectedWrites() {
+        val writeBehind = new WriteBehindCrud(controller, 1_000, Duration.ofMillis(20));
+        writeBehind.update(1, new User(TOO_LONG_USERNAME));
+        awaitTrue(() -> writeBehind.pendingCount() == 0);
+        writeBehind.update(3, new User("Closing"));
+
+        val failure = assertThrows(RejectedWritesException.class, writeBehind::close);
+
+        assertThat(failure.failedIds()).containsExactly(1);
+        assertThat(controller.read(3)).contains(new User("Closing"));
+    }
+
+    @SneakyThrows
+    @DisplayName("WriteBehindCrud - should keep accepted writes and refuse new ones while a full buffer cannot be flushed")
+    @Test
+    void update_shouldRejectNewWrites_whenFullBufferFailsToFlush() {
+        val delegate = mock(CrudController.class);
+        val outage = new SQLTransientConnectionException("Connection refused", "08001");
+        doThrow(outage).when(delegate).applyAll(any(), any());
+        try (val writeBehind = new WriteBehindCrud(delegate, 2, Duration.ofHours(1))) {
+            writeBehind.update(1, new User("One"));
+            writeBehind.update(2, new User("Two"));
+
+            val failure = assertThrows(SQLTransientConnectionException.class, () -> writeBehind.update(3, new User("Three")));
+            assertThat(failure).isSameAs(outage);
+            writeBehind.update(2, new User("TwoAgain"));
+
+            assertEquals(2, writeBehind.pendingCount());
+            assertThat(writeBehind.read(2)).contains(new User("TwoAgain"));
+
+            doReturn(2).when(delegate).applyAll(any(), any());
+            writeBehind.update(3, new User("Three"));
+            // one attempt failed during the outage, the retry went through
+            verify(delegate, times(2)).applyAll(Map.of(1, new User("One"), 2, new User("TwoAgain")), new int[0]);
+            assertEquals(1, writeBehind.pendingCount());
+        }
+    }
+
+    @SneakyThrows
+    private static void awaitTrue(SqlCondition condition) {
+        val deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.holds()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCondition {
+        boolean holds() throws SQLException;
+    }
+
+}
@@ -8,4 +8,22 @@ INSERT INTO users VALUES (DEFAULT, 'Gniok');
 INSERT INTO users VALUES (DEFAULT, 'Craig');
 INSERT INTO users VALUES (DEFAULT, 'MrZaroweczka');
 INSERT INTO users VALUES (DEFAULT, 'Grypsztals');
-INSERT INTO users VALUES (DEFAULT, 'Dziok');
\ No newline at end of file
+INSERT INTO users VALUES (DEFAULT, 'Dziok');
+
+-- change feed, see UserChangeFeed: payload is <first letter of TG_OP>,<id>,<version>
+CREATE SEQUENCE IF NOT EXISTS users_change_version_seq;
+CREATE OR REPLACE FUNCTION notify_users_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND OLD.id <> NEW.id THEN
+        PERFORM pg_notify('users_changes', 'D,' || OLD.id || ',' || nextval('users_change_version_seq'));
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('users_changes', 'D,' || OLD.id || ',' || nextval('users_change_version_seq'));
+    ELSE
+        PERFORM pg_notify('users_changes', left(TG_OP, 1) || ',' || NEW.id || ',' || nextval('users_change_version_seq'));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+CREATE TRIGGER users_change_notify AFTER INSERT OR UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_users_change();
@@ -0,0 +1,4 @@
+-- applied after users_schema.sql; CONCURRENTLY keeps the table writable while the indexes build
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS users_username_key ON users (username);
+-- LIKE 'prefix%' can only use a B-tree in a non-C collation through the pattern operator class
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_username_prefix_idx ON users (username text_pattern_ops);